@@ -0,0 +1,247 @@
+package com.example.test_ldap.analytics;
+
+import com.example.test_ldap.model.Portfolio;
+import com.example.test_ldap.model.Position;
+import com.example.test_ldap.store.PortfolioStore;
+import com.example.test_ldap.store.PositionStore;
+import com.example.test_ldap.store.StoreSnapshot;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+
+// Server side aggregations over the position store, so clients get the result instead of the whole book.
+//
+// Every report is computed from one Book: a portfolio and a position snapshot (see InMemoryStore.snapshot) that
+// existed together at one moment, reduced to what the caller may see - all positions for admins, only positions
+// in their own portfolios for everybody else.
+//
+// Large books are aggregated with parallel streams: the snapshot list is split into chunks that the common
+// fork/join pool folds into per-chunk Totals / top-N heaps, which are merged pairwise on the way back up.
+// The whole book is never sorted, the merge step only touches one small map or heap per chunk.
+@Component
+public class PositionAnalytics {
+
+    // Below this the fork/join split and merge costs more than a sequential pass
+    static final int PARALLEL_THRESHOLD = 2_048;
+
+    // Group key for positions without symbol, or whose portfolio is gone
+    static final String UNKNOWN = "(unknown)";
+
+    // Attempts to read both stores without a portfolio write in between, see book()
+    private static final int CONSISTENT_READ_ATTEMPTS = 8;
+
+    private final PortfolioStore portfolioStore;
+    private final PositionStore positionStore;
+
+    public PositionAnalytics(PortfolioStore portfolioStore, PositionStore positionStore) {
+        this.portfolioStore = portfolioStore;
+        this.positionStore = positionStore;
+    }
+
+    // ldapUserName == null -> whole book (admin)
+    public Book book(String ldapUserName) {
+        // The two stores are versioned independently. If the portfolio store did not move while the position
+        // snapshot was taken, both snapshots were current at that moment. Portfolio writes are rare, if they keep
+        // interleaving anyway the last pair read is used (positions may then be attributed to a portfolio that
+        // changed owner or was deleted just before).
+        StoreSnapshot<Portfolio> portfolioSnapshot;
+        StoreSnapshot<Position> positionSnapshot;
+        int attempt = 0;
+        do {
+            portfolioSnapshot = portfolioStore.snapshot();
+            positionSnapshot = positionStore.snapshot();
+        } while (portfolioStore.version() != portfolioSnapshot.version() && ++attempt < CONSISTENT_READ_ATTEMPTS);
+
+        // Not Collectors.toMap, it rejects null owners
+        Map<Long, String> owners = new HashMap<>();
+        for (Portfolio portfolio : portfolioSnapshot.values()) {
+            if (ldapUserName == null || ldapUserName.equals(portfolio.getLdapUserName())) {
+                owners.put(portfolio.getId(), portfolio.getLdapUserName() == null ? UNKNOWN : portfolio.getLdapUserName());
+            }
+        }
+
+        List<Position> positions = positionSnapshot.values();
+        if (ldapUserName != null) {
+            positions = stream(positions)
+                    .filter(p -> owners.containsKey(p.getPortfolioId()))
+                    .toList();
+        }
+        return new Book(positions, owners);
+    }
+
+    public ExposureReport exposure(Book book) {
+        Map<String, Totals> bySymbol = stream(book.positions())
+                .collect(Collectors.groupingBy(PositionAnalytics::symbol, totals()));
+
+        Totals total = new Totals();
+        bySymbol.values().forEach(total::merge);
+        List<SymbolExposure> symbols = bySymbol.entrySet().stream()
+                .map(e -> new SymbolExposure(e.getKey(), e.getValue().positions, e.getValue().quantity,
+                        e.getValue().costBasis, e.getValue().marketValue, e.getValue().unrealizedPnl(),
+                        share(e.getValue().marketValue, total.marketValue)))
+                .sorted(Comparator.comparingDouble(SymbolExposure::marketValue).reversed())
+                .toList();
+        return new ExposureReport(total.positions, total.costBasis, total.marketValue, total.unrealizedPnl(), symbols);
+    }
+
+    public List<OwnerConcentration> concentration(Book book) {
+        Map<String, Map<String, Totals>> byOwner = stream(book.positions())
+                .collect(Collectors.groupingBy(p -> book.owners().getOrDefault(p.getPortfolioId(), UNKNOWN),
+                        Collectors.groupingBy(PositionAnalytics::symbol, totals())));
+
+        double bookValue = byOwner.values().stream()
+                .flatMap(symbols -> symbols.values().stream())
+                .mapToDouble(t -> t.marketValue)
+                .sum();
+        return byOwner.entrySet().stream()
+                .map(e -> concentration(e.getKey(), e.getValue(), bookValue))
+                .sorted(Comparator.comparingDouble(OwnerConcentration::marketValue).reversed())
+                .toList();
+    }
+
+    // Movers by price change since purchase, the store keeps no price history
+    public Movers movers(Book book, int limit) {
+        Comparator<PositionMove> byChange = Comparator.comparingDouble(PositionMove::changePercent);
+        return stream(book.positions())
+                .filter(p -> p.getPurchasePrice() != null && p.getPurchasePrice() != 0 && p.getCurrentPrice() != null)
+                .map(PositionAnalytics::move)
+                .collect(Collectors.teeing(
+                        Collectors.filtering(m -> m.changePercent() > 0, topN(limit, byChange)),
+                        Collectors.filtering(m -> m.changePercent() < 0, topN(limit, byChange.reversed())),
+                        Movers::new));
+    }
+
+    private static OwnerConcentration concentration(String owner, Map<String, Totals> bySymbol, double bookValue) {
+        Totals total = new Totals();
+        bySymbol.values().forEach(total::merge);
+
+        String topSymbol = null;
+        double topValue = 0;
+        // Herfindahl-Hirschman index of the symbol weights: 1 = single symbol, 1/n = n equally weighted symbols
+        double herfindahl = 0;
+        for (Map.Entry<String, Totals> e : bySymbol.entrySet()) {
+            double value = e.getValue().marketValue;
+            if (topSymbol == null || value > topValue) {
+                topSymbol = e.getKey();
+                topValue = value;
+            }
+            double weight = share(value, total.marketValue);
+            herfindahl += weight * weight;
+        }
+        return new OwnerConcentration(owner, total.positions, total.marketValue, share(total.marketValue, bookValue),
+                topSymbol, share(topValue, total.marketValue), herfindahl);
+    }
+
+    private static PositionMove move(Position p) {
+        double quantity = value(p.getQuantity());
+        double change = p.getCurrentPrice() - p.getPurchasePrice();
+        return new PositionMove(p.getId(), p.getPortfolioId(), symbol(p), quantity, p.getPurchasePrice(),
+                p.getCurrentPrice(), change / p.getPurchasePrice() * 100, change * quantity);
+    }
+
+    private static <T> Stream<T> stream(List<T> values) {
+        return values.size() < PARALLEL_THRESHOLD ? values.stream() : values.parallelStream();
+    }
+
+    private static Collector<Position, Totals, Totals> totals() {
+        return Collector.of(Totals::new, Totals::add, Totals::merge, Collector.Characteristics.UNORDERED);
+    }
+
+    // The `limit` greatest elements by `order`, greatest first.
+    // Each chunk keeps a min-heap of at most `limit` candidates, O(n log limit) instead of sorting everything.
+    static <T> Collector<T, PriorityQueue<T>, List<T>> topN(int limit, Comparator<? super T> order) {
+        return Collector.of(
+                () -> new PriorityQueue<>(order),
+                (heap, value) -> offer(heap, value, limit, order),
+                (left, right) -> {
+                    right.forEach(value -> offer(left, value, limit, order));
+                    return left;
+                },
+                heap -> {
+                    List<T> result = new ArrayList<>(heap);
+                    result.sort(order.reversed());
+                    return result;
+                },
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private static <T> void offer(PriorityQueue<T> heap, T value, int limit, Comparator<? super T> order) {
+        if (heap.size() < limit) {
+            heap.add(value);
+        } else if (limit > 0 && order.compare(value, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(value);
+        }
+    }
+
+    private static String symbol(Position p) {
+        return p.getSymbol() == null ? UNKNOWN : p.getSymbol();
+    }
+
+    private static double value(Double d) {
+        return d == null ? 0 : d;
+    }
+
+    private static double share(double part, double whole) {
+        return whole == 0 ? 0 : part / whole;
+    }
+
+    // Mutable accumulator, only ever touched by the fork/join task that owns it
+    static final class Totals {
+        long positions;
+        double quantity;
+        double costBasis;
+        double marketValue;
+
+        void add(Position p) {
+            double qty = value(p.getQuantity());
+            positions++;
+            quantity += qty;
+            costBasis += qty * value(p.getPurchasePrice());
+            marketValue += qty * value(p.getCurrentPrice());
+        }
+
+        Totals merge(Totals other) {
+            positions += other.positions;
+            quantity += other.quantity;
+            costBasis += other.costBasis;
+            marketValue += other.marketValue;
+            return this;
+        }
+
+        double unrealizedPnl() {
+            return marketValue - costBasis;
+        }
+    }
+
+    // Positions visible to the caller plus portfolio id -> owner of the caller's visible portfolios
+    public record Book(List<Position> positions, Map<Long, String> owners) {
+    }
+
+    public record SymbolExposure(String symbol, long positions, double quantity, double costBasis,
+                                 double marketValue, double unrealizedPnl, double weight) {
+    }
+
+    public record ExposureReport(long positions, double costBasis, double marketValue, double unrealizedPnl,
+                                 List<SymbolExposure> symbols) {
+    }
+
+    public record OwnerConcentration(String owner, long positions, double marketValue, double shareOfBook,
+                                     String topSymbol, double topSymbolWeight, double herfindahlIndex) {
+    }
+
+    public record PositionMove(Long positionId, Long portfolioId, String symbol, double quantity,
+                               double purchasePrice, double currentPrice, double changePercent,
+                               double unrealizedPnl) {
+    }
+
+    public record Movers(List<PositionMove> gainers, List<PositionMove> losers) {
+    }
+}
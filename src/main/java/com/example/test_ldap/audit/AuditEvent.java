@@ -0,0 +1,16 @@
+package com.example.test_ldap.audit;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+
+// One line of the audit file.
+// resource / resourceId are set for mutations, detail carries e.g. the client address or the failure reason.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AuditEvent(
+        Instant timestamp,
+        AuditEventType type,
+        String principal,
+        String resource,
+        Long resourceId,
+        String detail) {
+}
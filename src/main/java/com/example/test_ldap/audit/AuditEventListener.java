@@ -0,0 +1,66 @@
+package com.example.test_ldap.audit;
+
+import com.example.test_ldap.store.PortfolioStore;
+import com.example.test_ldap.store.PositionStore;
+import com.example.test_ldap.store.StoreEntry;
+import com.example.test_ldap.store.StoreOperation;
+import java.time.Instant;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+// Feeds the AuditLog:
+// - login outcomes from the authentication events published by Spring Security's ProviderManager
+// - creates / updates / deletes of portfolios and positions, attributed to the authenticated caller
+//   (store listeners run on the request thread, so the SecurityContext is still populated)
+@Component
+public class AuditEventListener {
+
+    private final AuditLog auditLog;
+
+    public AuditEventListener(AuditLog auditLog, PortfolioStore portfolioStore, PositionStore positionStore) {
+        this.auditLog = auditLog;
+        portfolioStore.addListener((operation, entry) -> recordMutation("portfolio", operation, entry));
+        positionStore.addListener((operation, entry) -> recordMutation("position", operation, entry));
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        Authentication authentication = event.getAuthentication();
+        auditLog.record(new AuditEvent(Instant.now(), AuditEventType.LOGIN_SUCCESS,
+                authentication.getName(), null, null, remoteAddress(authentication)));
+    }
+
+    @EventListener
+    public void onAuthenticationFailure(AbstractAuthenticationFailureEvent event) {
+        Authentication authentication = event.getAuthentication();
+        String detail = event.getException().getClass().getSimpleName();
+        String remoteAddress = remoteAddress(authentication);
+        if (remoteAddress != null) {
+            detail = detail + " from " + remoteAddress;
+        }
+        auditLog.record(new AuditEvent(Instant.now(), AuditEventType.LOGIN_FAILURE,
+                authentication.getName(), null, null, detail));
+    }
+
+    private void recordMutation(String resource, StoreOperation operation, StoreEntry<?> entry) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String principal = authentication == null ? null : authentication.getName();
+        AuditEventType type = switch (operation) {
+            case CREATE -> AuditEventType.CREATE;
+            case UPDATE -> AuditEventType.UPDATE;
+            case DELETE -> AuditEventType.DELETE;
+        };
+        auditLog.record(new AuditEvent(Instant.now(), type, principal, resource, entry.id(), null));
+    }
+
+    private static String remoteAddress(Authentication authentication) {
+        return authentication.getDetails() instanceof WebAuthenticationDetails details
+                ? details.getRemoteAddress()
+                : null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.test_ldap.audit;
+
+public enum AuditEventType {
+    LOGIN_SUCCESS,
+    LOGIN_FAILURE,
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,207 @@
+package com.example.test_ldap.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+// Asynchronous audit trail written as JSON lines to a rolling local file.
+//
+// Request threads only record(): one small allocation and a CAS on the ring buffer, never any I/O.
+// A single background thread drains the buffer in batches, serializes the events and appends them to
+// app.audit.file, flushing once per batch. An existing file is appended to (on startup and when reopening
+// after a write error), it is only rolled when it would exceed app.audit.max-file-size
+// (audit.log -> audit.log.1 -> ... -> audit.log.<max-history>, the oldest one is deleted).
+//
+// If the writer falls behind and the buffer is full, new events are dropped and counted rather than
+// slowing down the request path, see stats().
+//
+// An idle writer parks without a timeout; the record() that finds it parked unparks it, so an idle server
+// does no polling. The writer announces parking (writerParked) before its last look at the buffer, and
+// record() checks the flag after its CAS on the buffer tail: either the writer sees the event or record()
+// sees the flag.
+@Component
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile boolean writerParked = false;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Only updated by the writer thread, atomics for visibility in stats()
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+
+    private OutputStream out;
+    private long fileSize;
+    private long droppedReported;
+
+    public AuditLog(ObjectMapper objectMapper,
+                    @Value("${app.audit.file:logs/audit.log}") String file,
+                    @Value("${app.audit.max-file-size:10MB}") DataSize maxFileSize,
+                    @Value("${app.audit.max-history:5}") int maxHistory,
+                    @Value("${app.audit.buffer-size:8192}") int bufferSize) {
+        this.objectMapper = objectMapper;
+        this.file = Paths.get(file);
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxHistory = maxHistory;
+        this.buffer = new AuditRingBuffer<>(bufferSize);
+
+        this.writerThread = new Thread(this::writeLoop, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void record(AuditEvent event) {
+        if (buffer.offer(event)) {
+            recorded.incrementAndGet();
+            if (writerParked) {
+                LockSupport.unpark(writerThread);
+            }
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(recorded.get(), dropped.get(), written.get(), batches.get(), writeErrors.get(),
+                buffer.size(), buffer.capacity());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || buffer.size() > 0) {
+            buffer.drain(batch::add, MAX_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                awaitEvents();
+                continue;
+            }
+            writeBatch(batch);
+            batch.clear();
+            reportDrops();
+        }
+        closeFile();
+    }
+
+    private void awaitEvents() {
+        writerParked = true;
+        // A slot claimed but not yet published also counts, the writer spins until it is readable
+        if (running && buffer.size() == 0) {
+            LockSupport.park(this);
+        } else {
+            Thread.onSpinWait();
+        }
+        writerParked = false;
+    }
+
+    private void writeBatch(List<AuditEvent> batch) {
+        try {
+            for (AuditEvent event : batch) {
+                byte[] line = objectMapper.writeValueAsBytes(event);
+                if (out == null) {
+                    openFile();
+                }
+                if (fileSize > 0 && fileSize + line.length + 1 > maxFileSize) {
+                    rollFile();
+                }
+                out.write(line);
+                out.write('\n');
+                fileSize += line.length + 1;
+            }
+            out.flush();
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (IOException e) {
+            // Lose this batch, reopen the file for the next one
+            writeErrors.incrementAndGet();
+            log.warn("Failed to write {} audit events to {}: {}", batch.size(), file, e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        fileSize = Files.size(file);
+    }
+
+    private void rollFile() throws IOException {
+        closeFile();
+        if (maxHistory > 0) {
+            Files.deleteIfExists(rolled(maxHistory));
+            for (int i = maxHistory - 1; i >= 1; i--) {
+                if (Files.exists(rolled(i))) {
+                    Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        openFile();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("Failed to close audit file {}: {}", file, e.getMessage());
+        }
+        out = null;
+    }
+
+    private void reportDrops() {
+        long droppedNow = dropped.get();
+        if (droppedNow > droppedReported) {
+            log.warn("Audit buffer full, dropped {} events ({} in total)", droppedNow - droppedReported, droppedNow);
+            droppedReported = droppedNow;
+        }
+    }
+
+    // recorded + dropped = events offered, recorded - written - pending = events lost to write errors
+    public record Stats(long recorded, long dropped, long written, long batches, long writeErrors,
+                        int pending, int capacity) {
+    }
+}
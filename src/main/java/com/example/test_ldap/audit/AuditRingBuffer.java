@@ -0,0 +1,74 @@
+package com.example.test_ldap.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Bounded, lock-free multi-producer / single-consumer queue.
+//
+// Producers claim a slot by CAS on the tail sequence and then publish the element into it,
+// the single consumer takes published elements in sequence order and frees their slots.
+// A full buffer makes offer() fail immediately, producers never wait for the consumer.
+public class AuditRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    // capacity is rounded up to a power of two
+    public AuditRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(Math.max(size, 1));
+        this.mask = slots.length() - 1;
+    }
+
+    // Returns false without blocking if the buffer is full
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        while (true) {
+            long claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(claimed, claimed + 1)) {
+                // The slot was freed by the consumer before head moved past it
+                slots.lazySet((int) claimed & mask, element);
+                return true;
+            }
+        }
+    }
+
+    // Consumer side only. Hands up to max elements to the consumer in offer order, returns how many.
+    // Stops early at a slot that was claimed but not yet published.
+    public int drain(Consumer<? super E> consumer, int max) {
+        long next = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) next & mask;
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            next++;
+            head.lazySet(next);
+            consumer.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.test_ldap.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.function.LongSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+// Serves repeated GETs of the list and analytics endpoints from SerializedResponseCache.
+//
+// Runs after the Spring Security filter chain (see ResponseCacheConfig), so the caller is already
+// authenticated when the cache key is built:
+//   <path>?<query> | <caller scope> | <Accept>
+// The caller scope is "admin" for ROLE_ADMIN (admins all see the same data) and "user:<name>" otherwise,
+// so a regular user can never be served a list rendered for somebody else.
+// The store version is not part of the string key, the cache drops all entries once it moves on.
+//
+// On a miss the request runs through the controller as usual and the serialized body is captured.
+// On a hit the controller, message converter and Jackson are skipped entirely, the body is a byte copy
+// in the best encoding the client accepts (gzip, deflate or identity).
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private final SerializedResponseCache cache;
+    private final LongSupplier storeVersion;
+
+    public ResponseCacheFilter(SerializedResponseCache cache, LongSupplier storeVersion) {
+        this.cache = cache;
+        this.storeVersion = storeVersion;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String scope = callerScope();
+        if (scope == null) {
+            // Not authenticated, let the controller / method security produce the 401
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = cacheKey(request, scope);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        long version = storeVersion.getAsLong();
+        SerializedResponseCache.Entry entry = cache.get(key, version);
+        if (entry != null) {
+            writeCached(entry, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, responseWrapper);
+        if (responseWrapper.getStatus() == HttpStatus.OK.value() && responseWrapper.getContentType() != null) {
+            cache.put(key, version, responseWrapper.getContentType(), responseWrapper.getContentAsByteArray());
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private static String callerScope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        return isAdmin ? "admin" : "user:" + authentication.getName();
+    }
+
+    private static String cacheKey(HttpServletRequest request, String scope) {
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return request.getRequestURI()
+                + (query == null ? "" : "?" + query)
+                + "|" + scope
+                + "|" + (accept == null ? "" : accept);
+    }
+
+    private static void writeCached(SerializedResponseCache.Entry entry, HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = entry.identity();
+        if (entry.gzip() != null && accepts(acceptEncoding, "gzip")) {
+            body = entry.gzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else if (entry.deflate() != null && accepts(acceptEncoding, "deflate")) {
+            body = entry.deflate();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "deflate");
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(entry.contentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // Accept-Encoding: gzip, deflate;q=0.5, br  -> coding listed and not explicitly refused with q=0
+    private static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!tokens[0].trim().equalsIgnoreCase(coding)) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim().replace(" ", "");
+                if (parameter.matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.test_ldap.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// LRU cache of fully serialized response bodies, each kept as identity, gzip and deflate bytes.
+//
+// Entries are only valid for the store version they were rendered from (see InMemoryStore.version()).
+// The first lookup or insert with a newer version drops everything at once, so any write to the
+// portfolio or position store invalidates all cached responses without tracking which entry depends on what.
+//
+// Memory is capped by the summed size of all byte arrays; least recently used entries are evicted first.
+public class SerializedResponseCache {
+
+    // Bodies below this size are not worth compressing (gzip header + trailer alone is 18 bytes)
+    private static final int MIN_COMPRESS_SIZE = 256;
+
+    private final long maxBytes;
+
+    // accessOrder = true -> iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private long storeVersion = -1;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SerializedResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized Entry get(String key, long storeVersion) {
+        invalidateIfOutdated(storeVersion);
+        Entry entry = storeVersion == this.storeVersion ? entries.get(key) : null;
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    public void put(String key, long storeVersion, String contentType, byte[] body) {
+        // Compress outside the lock, the map is only locked for the bookkeeping
+        Entry entry = new Entry(contentType, body, compress(body, true), compress(body, false));
+        if (entry.size() > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            invalidateIfOutdated(storeVersion);
+            if (storeVersion != this.storeVersion) {
+                // Rendered from data that has been written to since, don't cache
+                return;
+            }
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= previous.size();
+            }
+            currentBytes += entry.size();
+            evictUntilWithinLimit();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), currentBytes, maxBytes, hits, misses, evictions);
+    }
+
+    private void invalidateIfOutdated(long storeVersion) {
+        if (storeVersion > this.storeVersion) {
+            clear();
+            this.storeVersion = storeVersion;
+        }
+    }
+
+    private void evictUntilWithinLimit() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().size();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static byte[] compress(byte[] body, boolean gzip) {
+        if (body.length < MIN_COMPRESS_SIZE) {
+            return null;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream out = gzip ? new GZIPOutputStream(buffer) : new DeflaterOutputStream(buffer)) {
+            out.write(body);
+        } catch (IOException e) {
+            // Cannot happen for an in-memory stream
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // gzip / deflate are null if the body is too small to be worth compressing
+    public record Entry(String contentType, byte[] identity, byte[] gzip, byte[] deflate) {
+
+        long size() {
+            return identity.length
+                    + (gzip == null ? 0 : gzip.length)
+                    + (deflate == null ? 0 : deflate.length);
+        }
+    }
+
+    public record Stats(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {
+    }
+}
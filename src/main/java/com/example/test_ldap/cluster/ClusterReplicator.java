@@ -0,0 +1,266 @@
+package com.example.test_ldap.cluster;
+
+import com.example.test_ldap.controller.ApiMediaTypes;
+import com.example.test_ldap.store.PortfolioStore;
+import com.example.test_ldap.store.PositionStore;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+// Multi-master replication of the portfolio and position stores between cluster nodes ("cluster" profile).
+//
+// - Every node accepts writes, local writes are queued per peer and shipped in batches (CBOR) by a
+//   background thread, so the request thread never waits for the network
+// - A peer that is down keeps its queue, shipping resumes with exponential backoff once it is reachable.
+//   If the queue fills up, the backlog is dropped and the peer gets the full state instead once it is back
+// - A (re)starting node pulls the full state of every reachable peer before the web server opens for requests.
+//   Ids a restarted node hands out never collide with those of its previous run, even if no peer was reachable
+//   (see InMemoryStore.enableReplication)
+// - Conflicts are resolved last-writer-wins per entity, see InMemoryStore / StoreEntry
+// - Reads are always served from the local store
+// - Tombstones of deletes are dropped once they are older than app.cluster.tombstone-horizon and every peer link
+//   has been idle (everything queued before delivered) since they were written. A peer that stays unreachable
+//   keeps them alive. The horizon also bounds how long a partitioned node may sit on writes older than a delete
+//   (which it would ship with a full state resync) without resurrecting the deleted entity.
+//
+// Peers authenticate each other with a shared secret (app.cluster.secret) sent as X-Cluster-Secret.
+@Component
+@Profile("cluster")
+public class ClusterReplicator implements SmartInitializingSingleton {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterReplicator.class);
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_QUEUED_BATCHES = 100_000;
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    private static final long TOMBSTONE_COLLECTION_INTERVAL_MILLIS = 10_000;
+
+    private final PortfolioStore portfolioStore;
+    private final PositionStore positionStore;
+    private final RestClient restClient;
+    private final int nodeIndex;
+    private final String secret;
+    private final long tombstoneHorizonMillis;
+    private final List<PeerLink> peers = new ArrayList<>();
+    private final AtomicLong nextTombstoneCollection = new AtomicLong();
+
+    public ClusterReplicator(PortfolioStore portfolioStore,
+                             PositionStore positionStore,
+                             RestClient.Builder restClientBuilder,
+                             @Value("${app.cluster.node-index}") int nodeIndex,
+                             @Value("${app.cluster.peers:}") List<String> peerUrls,
+                             @Value("${app.cluster.secret}") String secret,
+                             @Value("${app.cluster.tombstone-horizon:1h}") Duration tombstoneHorizon) {
+        if (secret == null || secret.isBlank()) {
+            // Anybody who knows the secret can write to the stores bypassing LDAP and @PreAuthorize
+            throw new IllegalStateException("app.cluster.secret (CLUSTER_SECRET) must be set in the cluster profile");
+        }
+        this.portfolioStore = portfolioStore;
+        this.positionStore = positionStore;
+        // Startup waits for the state transfer, don't let an unreachable peer host hang it
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(2));
+        requestFactory.setReadTimeout(Duration.ofSeconds(30));
+        this.restClient = restClientBuilder.requestFactory(requestFactory).build();
+        this.nodeIndex = nodeIndex;
+        this.secret = secret;
+        this.tombstoneHorizonMillis = tombstoneHorizon.toMillis();
+
+        // All nodes list each other, so this node plus its peers is the whole cluster
+        int clusterSize = peerUrls.size() + 1;
+        portfolioStore.enableReplication(nodeIndex, clusterSize);
+        positionStore.enableReplication(nodeIndex, clusterSize);
+
+        for (String peerUrl : peerUrls) {
+            PeerLink peer = new PeerLink(peerUrl);
+            peers.add(peer);
+            peer.start();
+        }
+        portfolioStore.addListener((operation, entry) -> enqueue(ReplicationBatch.ofPortfolio(nodeIndex, entry)));
+        positionStore.addListener((operation, entry) -> enqueue(ReplicationBatch.ofPosition(nodeIndex, entry)));
+
+        log.info("Cluster node {} of {} started, peers: {}", nodeIndex, clusterSize, peerUrls);
+    }
+
+    public boolean isTrustedPeer(String presentedSecret) {
+        return presentedSecret != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8),
+                presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void apply(ReplicationBatch batch) {
+        batch.portfolios().forEach(portfolioStore::apply);
+        batch.positions().forEach(positionStore::apply);
+    }
+
+    public ReplicationBatch exportState() {
+        return new ReplicationBatch(nodeIndex, portfolioStore.exportEntries(), positionStore.exportEntries());
+    }
+
+    // Runs once all beans exist, before the embedded web server starts accepting requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        pullStateFromPeers();
+    }
+
+    private void pullStateFromPeers() {
+        for (PeerLink peer : peers) {
+            try {
+                ReplicationBatch state = restClient.get()
+                        .uri(peer.baseUrl + "/internal/cluster/state")
+                        .header(SECRET_HEADER, secret)
+                        .accept(MediaType.valueOf(ApiMediaTypes.CBOR))
+                        .retrieve()
+                        .body(ReplicationBatch.class);
+                if (state != null) {
+                    apply(state);
+                    log.info("Pulled {} portfolios and {} positions from node {}",
+                            state.portfolios().size(), state.positions().size(), state.sourceNode());
+                }
+            } catch (RestClientException e) {
+                // Not up yet, it pulls our state when it starts
+                log.info("Peer {} not reachable for initial state transfer: {}", peer.baseUrl, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        peers.forEach(Thread::interrupt);
+    }
+
+    private void enqueue(ReplicationBatch batch) {
+        for (PeerLink peer : peers) {
+            if (!peer.queue.offer(batch)) {
+                // Peer has been unreachable for long: stop growing the backlog, it gets the full state instead.
+                // Writes dropped here (even if the offer below loses a race) are covered by that resync
+                if (!peer.resyncRequired.getAndSet(true)) {
+                    log.warn("Replication backlog for {} exceeded {} writes, dropping it for a full state resync",
+                            peer.baseUrl, MAX_QUEUED_BATCHES);
+                }
+                peer.queue.clear();
+                // Also wakes up the link thread if it is waiting for the next write
+                peer.queue.offer(batch);
+            }
+        }
+    }
+
+    // Called by the idle peer links, runs at most once per TOMBSTONE_COLLECTION_INTERVAL_MILLIS
+    private void collectTombstones() {
+        long now = System.currentTimeMillis();
+        long next = nextTombstoneCollection.get();
+        if (now < next || !nextTombstoneCollection.compareAndSet(next, now + TOMBSTONE_COLLECTION_INTERVAL_MILLIS)) {
+            return;
+        }
+        long stampBefore = now - tombstoneHorizonMillis;
+        for (PeerLink peer : peers) {
+            stampBefore = Math.min(stampBefore, peer.deliveredBefore);
+        }
+        int purged = portfolioStore.purgeTombstones(stampBefore) + positionStore.purgeTombstones(stampBefore);
+        if (purged > 0) {
+            log.debug("Dropped {} tombstones stamped before {}", purged, stampBefore);
+        }
+    }
+
+    private class PeerLink extends Thread {
+
+        private final String baseUrl;
+        private final LinkedBlockingQueue<ReplicationBatch> queue = new LinkedBlockingQueue<>(MAX_QUEUED_BATCHES);
+        private final AtomicBoolean resyncRequired = new AtomicBoolean();
+        // Every write stamped before this (wall clock millis) has been delivered to the peer
+        private volatile long deliveredBefore = 0;
+
+        PeerLink(String baseUrl) {
+            super("cluster-replication-" + baseUrl);
+            this.baseUrl = baseUrl;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<ReplicationBatch> pending = new ArrayList<>();
+            long backoff = MIN_BACKOFF_MILLIS;
+            while (!isInterrupted()) {
+                try {
+                    if (pending.isEmpty() && !resyncRequired.get()) {
+                        // Writes are queued right after their clock tick, the horizon covers that gap
+                        long idleSince = System.currentTimeMillis();
+                        ReplicationBatch next = queue.poll(TOMBSTONE_COLLECTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        if (next == null) {
+                            deliveredBefore = idleSince;
+                            collectTombstones();
+                            continue;
+                        }
+                        pending.add(next);
+                    }
+                    if (resyncRequired.getAndSet(false)) {
+                        sendFullState(pending);
+                    } else {
+                        queue.drainTo(pending, MAX_BATCH_SIZE - pending.size());
+                        send(ReplicationBatch.merge(nodeIndex, pending));
+                        pending.clear();
+                    }
+                    backoff = MIN_BACKOFF_MILLIS;
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    // Keep the pending writes and retry, order is irrelevant for last-writer-wins.
+                    // Anything but an I/O or HTTP error is unexpected, but must not end replication to this peer either
+                    if (e instanceof RestClientException) {
+                        log.debug("Replication to {} failed, retrying in {} ms: {}", baseUrl, backoff, e.getMessage());
+                    } else {
+                        log.warn("Replication to {} failed, retrying in {} ms", baseUrl, backoff, e);
+                    }
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                }
+            }
+        }
+
+        private void sendFullState(List<ReplicationBatch> pending) {
+            // Every write queued so far is already visible in the stores, so the exported state includes it
+            queue.clear();
+            pending.clear();
+            try {
+                send(exportState());
+            } catch (RuntimeException e) {
+                resyncRequired.set(true);
+                throw e;
+            }
+            log.info("Sent full state to {} after dropping its replication backlog", baseUrl);
+        }
+
+        private void send(ReplicationBatch batch) {
+            restClient.post()
+                    .uri(baseUrl + "/internal/cluster/replicate")
+                    .header(SECRET_HEADER, secret)
+                    .contentType(MediaType.valueOf(ApiMediaTypes.CBOR))
+                    .body(batch)
+                    .retrieve()
+                    .toBodilessEntity();
+        }
+    }
+}
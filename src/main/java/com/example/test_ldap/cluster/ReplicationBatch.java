@@ -0,0 +1,29 @@
+package com.example.test_ldap.cluster;
+
+import com.example.test_ldap.model.Portfolio;
+import com.example.test_ldap.model.Position;
+import com.example.test_ldap.store.StoreEntry;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes shipped from one cluster node to another, also used for the full state a starting node pulls
+public record ReplicationBatch(int sourceNode, List<StoreEntry<Portfolio>> portfolios, List<StoreEntry<Position>> positions) {
+
+    static ReplicationBatch ofPortfolio(int sourceNode, StoreEntry<Portfolio> entry) {
+        return new ReplicationBatch(sourceNode, List.of(entry), List.of());
+    }
+
+    static ReplicationBatch ofPosition(int sourceNode, StoreEntry<Position> entry) {
+        return new ReplicationBatch(sourceNode, List.of(), List.of(entry));
+    }
+
+    static ReplicationBatch merge(int sourceNode, List<ReplicationBatch> batches) {
+        List<StoreEntry<Portfolio>> portfolios = new ArrayList<>();
+        List<StoreEntry<Position>> positions = new ArrayList<>();
+        for (ReplicationBatch batch : batches) {
+            portfolios.addAll(batch.portfolios());
+            positions.addAll(batch.positions());
+        }
+        return new ReplicationBatch(sourceNode, portfolios, positions);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.test_ldap.config;
+
+import com.example.test_ldap.cache.ResponseCacheFilter;
+import com.example.test_ldap.cache.SerializedResponseCache;
+import com.example.test_ldap.store.PortfolioStore;
+import com.example.test_ldap.store.PositionStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.response-cache", name = "enabled", havingValue = "true")
+public class ResponseCacheConfig {
+
+    // Opt-in (app.response-cache.enabled) cache of serialized list responses.
+    // Any write to the portfolio or position store moves the combined store version on, which invalidates
+    // every cached response - repeated reads of unchanged data become a byte copy.
+
+    @Bean
+    public SerializedResponseCache serializedResponseCache(
+          @Value("${app.response-cache.max-size:16MB}") DataSize maxSize) {
+        return new SerializedResponseCache(maxSize.toBytes());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(
+          SerializedResponseCache serializedResponseCache,
+          PortfolioStore portfolioStore,
+          PositionStore positionStore) {
+        ResponseCacheFilter filter = new ResponseCacheFilter(
+              serializedResponseCache,
+              () -> portfolioStore.version() + positionStore.version()
+        );
+        FilterRegistrationBean<ResponseCacheFilter> registration = new FilterRegistrationBean<>(filter);
+        // Only the list and analytics endpoints, not /{id}. A hit skips the controller and its @PreAuthorize,
+        // so only add endpoints authorized by isAuthenticated() alone
+        registration.addUrlPatterns("/api/portfolios", "/api/positions", "/api/analytics/*");
+        // Right after the security filter chain, the caller has to be authenticated to build the cache key
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -3,10 +3,22 @@ package com.example.test_ldap.config;
 import static org.springframework.security.config.Customizer.withDefaults;
 import static org.springframework.security.config.http.SessionCreationPolicy.IF_REQUIRED;
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
+import com.example.test_ldap.ldap.InProcessAuthoritiesPopulator;
+import com.example.test_ldap.ldap.InProcessBindAuthenticator;
+import com.example.test_ldap.security.LoginRateLimitFilter;
+import com.example.test_ldap.security.LoginRateLimiter;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
 import org.springframework.ldap.core.support.BaseLdapPathContextSource;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.Customizer;
@@ -19,12 +31,16 @@ import org.springframework.security.ldap.authentication.LdapAuthenticationProvid
 import org.springframework.security.ldap.search.FilterBasedLdapUserSearch;
 import org.springframework.security.ldap.userdetails.DefaultLdapAuthoritiesPopulator;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
     // Note: The Authentication object is the same regardless of how the user authenticated:
     // - HTTP Basic Auth: "If the client sends HTTP Basic credentials, authenticate them"
     //   - Authentication object created from credentials
@@ -37,10 +53,12 @@ public class SecurityConfig {
 
     @Bean
     @Profile("basic")
-    public SecurityFilterChain basicSecurityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
+    public SecurityFilterChain basicSecurityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider,
+          LoginRateLimiter loginRateLimiter) throws Exception {
         http
               .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
               .authenticationProvider(authenticationProvider)
+              .addFilterBefore(new LoginRateLimitFilter(loginRateLimiter), BasicAuthenticationFilter.class)
               .httpBasic(withDefaults())
               .sessionManagement(session -> session.sessionCreationPolicy(STATELESS))
               .csrf(csrf -> csrf.disable());
@@ -49,9 +67,13 @@ public class SecurityConfig {
 
     @Bean
     @Profile("session")
-    public SecurityFilterChain sessionAuthFilterChain(HttpSecurity http, AuthenticationProvider ldapAuthenticationProvider) throws Exception {
+    public SecurityFilterChain sessionAuthFilterChain(HttpSecurity http, AuthenticationProvider ldapAuthenticationProvider,
+          LoginRateLimiter loginRateLimiter) throws Exception {
         http
               .authenticationProvider(ldapAuthenticationProvider)
+              // Ahead of both form login and Basic, so POST /login is throttled like Basic credentials
+              .addFilterBefore(new LoginRateLimitFilter(loginRateLimiter, antMatcher(HttpMethod.POST, "/login")),
+                    UsernamePasswordAuthenticationFilter.class)
               .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
               .httpBasic(Customizer.withDefaults())
               .formLogin(Customizer.withDefaults())
@@ -67,29 +89,57 @@ public class SecurityConfig {
     @Bean
     public SecurityFilterChain hybridSecurityFilterChain(
           HttpSecurity http,
-          AuthenticationProvider ldapAuthenticationProvider) throws Exception {
+          AuthenticationProvider ldapAuthenticationProvider,
+          LoginRateLimiter loginRateLimiter,
+          Environment environment) throws Exception {
         http
               .authenticationProvider(ldapAuthenticationProvider)  // ← Register provider
+              // Throttles Basic credentials per username / client IP before they cost an LDAP bind
+              .addFilterBefore(new LoginRateLimitFilter(loginRateLimiter), BasicAuthenticationFilter.class)
               .authorizeHttpRequests(auth -> auth
                     .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                     .anyRequest().permitAll()
               )
               .httpBasic(Customizer.withDefaults())
-              .sessionManagement(session -> session
-                    .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)  // Create session after first auth
-                    .maximumSessions(1)
-              )
               .csrf(csrf -> csrf.disable());
 
+        if (environment.matchesProfiles("cluster")) {
+            // Cluster nodes share no HTTP session state: clients re-send Basic credentials, which every node
+            // verifies against LDAP, so requests can be spread across nodes without sticky sessions
+            http.sessionManagement(session -> session.sessionCreationPolicy(STATELESS));
+        } else {
+            http.sessionManagement(session -> session
+                  .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)  // Create session after first auth
+                  .maximumSessions(1)
+            );
+        }
+
         return http.build();
     }
 
 
     @Bean
-    public AuthenticationProvider ldapAuthenticationProvider(BaseLdapPathContextSource contextSource) {
+    public AuthenticationProvider ldapAuthenticationProvider(
+          BaseLdapPathContextSource contextSource,
+          ObjectProvider<InMemoryDirectoryServer> embeddedDirectoryServer,
+          @Value("${app.ldap.in-process:false}") boolean inProcess) {
         // Authenticator validates username / password against LDAP
-        System.out.println("Creating LDAP Authentication Provider");
-        System.out.println("  Context Source Base: " + contextSource.getBaseLdapPathAsString());
+        log.info("Creating LDAP authentication provider, context source base: {}", contextSource.getBaseLdapPathAsString());
+
+        if (inProcess) {
+            // Fast path for tests and dev: same search / bind / group lookup, but straight against the embedded
+            // UnboundID server in this JVM instead of over a socket through JNDI
+            InMemoryDirectoryServer directoryServer = embeddedDirectoryServer.getIfAvailable();
+            if (directoryServer == null) {
+                throw new IllegalStateException("app.ldap.in-process requires the embedded LDAP server (spring.ldap.embedded.*)");
+            }
+            log.info("Using in-process connections to the embedded LDAP server");
+            String base = contextSource.getBaseLdapPathAsString();
+            return new LdapAuthenticationProvider(
+                  new InProcessBindAuthenticator(directoryServer, "ou=people," + base),
+                  new InProcessAuthoritiesPopulator(directoryServer, "ou=groups," + base)
+            );
+        }
 
         BindAuthenticator bindAuthenticator = new BindAuthenticator(contextSource);
         FilterBasedLdapUserSearch userSearch = new FilterBasedLdapUserSearch(
@@ -0,0 +1,36 @@
+package com.example.test_ldap.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+public class WireFormatConfig {
+
+    // Binary alternatives to JSON for bulk clients (see ApiMediaTypes):
+    // - CBOR  (application/cbor)             - doubles as 8 byte floats, no quoting/escaping
+    // - Smile (application/x-jackson-smile)  - additionally back-references repeated field names
+    //
+    // Spring MVC would register both converters on its own once the dataformat jars are on the classpath,
+    // but with a plain ObjectMapper. Declaring them as beans lets Spring Boot swap them in at the same position
+    // in the converter list, built from the same Jackson2ObjectMapperBuilder (modules, spring.jackson.* settings)
+    // as the JSON converter. JSON stays first in the list, so it remains the default for browsers and Swagger UI
+    // (Accept: */*) and for clients that send no Accept header at all.
+    //
+    // The Jackson converters stream straight from / to the servlet input and output streams, so large
+    // Position / Portfolio lists are never buffered as an intermediate tree.
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.test_ldap.controller;
+
+import com.example.test_ldap.analytics.PositionAnalytics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/api/analytics", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+@Tag(name = "Analytics", description = "Aggregations over positions")
+public class AnalyticsController {
+
+    private static final int MAX_MOVERS = 100;
+
+    private final PositionAnalytics positionAnalytics;
+
+    public AnalyticsController(PositionAnalytics positionAnalytics) {
+        this.positionAnalytics = positionAnalytics;
+    }
+
+    @Operation(summary = "Get exposure per symbol",
+            description = "Cost basis, market value and unrealized P&L per symbol and for the whole visible book")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed exposure",
+                    content = @Content(schema = @Schema(implementation = PositionAnalytics.ExposureReport.class)))
+    })
+    @GetMapping("/exposure")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<PositionAnalytics.ExposureReport> getExposure(Authentication authentication) {
+        return ResponseEntity.ok(positionAnalytics.exposure(book(authentication)));
+    }
+
+    @Operation(summary = "Get concentration per owner",
+            description = "Market value, share of the visible book and largest symbol per portfolio owner")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed concentration",
+                    content = @Content(schema = @Schema(implementation = PositionAnalytics.OwnerConcentration.class)))
+    })
+    @GetMapping("/concentration")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<PositionAnalytics.OwnerConcentration>> getConcentration(Authentication authentication) {
+        return ResponseEntity.ok(positionAnalytics.concentration(book(authentication)));
+    }
+
+    @Operation(summary = "Get top movers",
+            description = "Positions with the largest price gain and loss since purchase")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed movers",
+                    content = @Content(schema = @Schema(implementation = PositionAnalytics.Movers.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit")
+    })
+    @GetMapping("/movers")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<PositionAnalytics.Movers> getMovers(
+            @Parameter(description = "Number of gainers and losers to return (1-" + MAX_MOVERS + ")")
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        if (limit < 1 || limit > MAX_MOVERS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(positionAnalytics.movers(book(authentication), limit));
+    }
+
+    // Admin sees the whole book, regular users only positions in their own portfolios
+    private PositionAnalytics.Book book(Authentication authentication) {
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        return positionAnalytics.book(isAdmin ? null : authentication.getName());
+    }
+}
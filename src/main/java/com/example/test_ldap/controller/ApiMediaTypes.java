@@ -0,0 +1,16 @@
+package com.example.test_ldap.controller;
+
+import org.springframework.http.MediaType;
+
+// Media types the REST controllers negotiate on (Accept for responses, Content-Type for request bodies).
+// JSON is listed first: it is what browsers / Swagger UI get when they send Accept: */*.
+// Converters for the binary formats are registered in WireFormatConfig.
+public final class ApiMediaTypes {
+
+    public static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+    public static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String SMILE = "application/x-jackson-smile";
+
+    private ApiMediaTypes() {
+    }
+}
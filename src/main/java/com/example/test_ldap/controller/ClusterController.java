@@ -0,0 +1,44 @@
+package com.example.test_ldap.controller;
+
+import com.example.test_ldap.cluster.ClusterReplicator;
+import com.example.test_ldap.cluster.ReplicationBatch;
+import io.swagger.v3.oas.annotations.Hidden;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Node-to-node endpoints of the "cluster" profile, not part of the public API.
+// Peers are not LDAP users, they present the shared cluster secret instead.
+@Hidden
+@RestController
+@RequestMapping("/internal/cluster")
+@Profile("cluster")
+public class ClusterController {
+
+    private final ClusterReplicator clusterReplicator;
+
+    public ClusterController(ClusterReplicator clusterReplicator) {
+        this.clusterReplicator = clusterReplicator;
+    }
+
+    @PostMapping("/replicate")
+    public ResponseEntity<Void> replicate(
+            @RequestHeader(value = ClusterReplicator.SECRET_HEADER, required = false) String secret,
+            @RequestBody ReplicationBatch batch) {
+        if (!clusterReplicator.isTrustedPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        clusterReplicator.apply(batch);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/state")
+    public ResponseEntity<ReplicationBatch> state(
+            @RequestHeader(value = ClusterReplicator.SECRET_HEADER, required = false) String secret) {
+        if (!clusterReplicator.isTrustedPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(clusterReplicator.exportState());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.test_ldap.controller;
 
 import com.example.test_ldap.model.Portfolio;
+import com.example.test_ldap.store.PortfolioStore;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,7 +9,6 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import java.util.ArrayList;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,21 +16,22 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
-@RequestMapping("/api/portfolios")
+@RequestMapping(value = "/api/portfolios", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
 @Tag(name = "Portfolio", description = "Portfolio management APIs")
 public class PortfolioController {
 
-    private final ConcurrentHashMap<Long, Portfolio> portfolios = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    private final PortfolioStore portfolioStore;
+
+    public PortfolioController(PortfolioStore portfolioStore) {
+        this.portfolioStore = portfolioStore;
+    }
 
     @Operation(summary = "Get all portfolios", description = "Retrieve a list of all portfolios")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Portfolio.class)))
+                    content = @Content(schema = @Schema(implementation = Portfolio.class)))
     })
     @GetMapping
     @PreAuthorize("isAuthenticated()")
@@ -44,13 +45,11 @@ public class PortfolioController {
         
         if (isAdmin) {
             // Admin sees all portfolios
-            return ResponseEntity.ok(new ArrayList<>(portfolios.values()));
+            return ResponseEntity.ok(portfolioStore.findAll());
         } else {
             // Regular users only see their own portfolios
             String ldapUserName = authentication.getName();
-            var result = portfolios.values().stream()
-                    .filter(p -> p.getLdapUserName().equals(ldapUserName))
-                    .toList();
+            var result = portfolioStore.findAll(p -> p.getLdapUserName().equals(ldapUserName));
             return ResponseEntity.ok(result);
         }
     }
@@ -58,13 +57,13 @@ public class PortfolioController {
     @Operation(summary = "Get portfolio by ID", description = "Retrieve a specific portfolio by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved portfolio",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Portfolio.class))),
+                    content = @Content(schema = @Schema(implementation = Portfolio.class))),
             @ApiResponse(responseCode = "404", description = "Portfolio not found")
     })
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Portfolio> getPortfolioById(@PathVariable Long id, Authentication auth) {
-        Portfolio portfolio = portfolios.get(id);
+        Portfolio portfolio = portfolioStore.findById(id);
         if (portfolio == null) {
             return ResponseEntity.notFound().build();
         }
@@ -83,35 +82,31 @@ public class PortfolioController {
     @Operation(summary = "Create a new portfolio", description = "Create a new portfolio")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Portfolio created successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Portfolio.class))),
+                    content = @Content(schema = @Schema(implementation = Portfolio.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input")
     })
-    @PostMapping
+    @PostMapping(consumes = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Portfolio> createPortfolio(@RequestBody Portfolio portfolio, Authentication auth) {
-        Long id = idCounter.getAndIncrement();
-        portfolio.setId(id);
         portfolio.setLdapUserName(auth.getName());
-        portfolios.put(id, portfolio);
+        portfolioStore.create(portfolio);
         return ResponseEntity.status(HttpStatus.CREATED).body(portfolio);
     }
 
     @Operation(summary = "Update a portfolio", description = "Update an existing portfolio by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Portfolio updated successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Portfolio.class))),
+                    content = @Content(schema = @Schema(implementation = Portfolio.class))),
             @ApiResponse(responseCode = "404", description = "Portfolio not found")
     })
-    @PutMapping("/{id}")
+    @PutMapping(value = "/{id}", consumes = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Portfolio> updatePortfolio(
             @Parameter(description = "ID of the portfolio to update") @PathVariable Long id,
             @RequestBody Portfolio portfolio) {
-        if (!portfolios.containsKey(id)) {
+        if (!portfolioStore.update(id, portfolio)) {
             return ResponseEntity.notFound().build();
         }
-        portfolio.setId(id);
-        portfolios.put(id, portfolio);
         return ResponseEntity.ok(portfolio);
     }
 
@@ -124,10 +119,9 @@ public class PortfolioController {
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Void> deletePortfolio(
             @Parameter(description = "ID of the portfolio to delete") @PathVariable Long id) {
-        if (!portfolios.containsKey(id)) {
+        if (!portfolioStore.delete(id)) {
             return ResponseEntity.notFound().build();
         }
-        portfolios.remove(id);
         return ResponseEntity.noContent().build();
     }
 }
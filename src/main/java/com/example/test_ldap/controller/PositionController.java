@@ -1,6 +1,7 @@
 package com.example.test_ldap.controller;
 
 import com.example.test_ldap.model.Position;
+import com.example.test_ldap.store.PositionStore;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,49 +14,45 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 @RestController
-@RequestMapping("/api/positions")
+@RequestMapping(value = "/api/positions", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
 @Tag(name = "Position", description = "Position management APIs")
 public class PositionController {
 
-    private final ConcurrentHashMap<Long, Position> positions = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    private final PositionStore positionStore;
+
+    public PositionController(PositionStore positionStore) {
+        this.positionStore = positionStore;
+    }
 
     @Operation(summary = "Get all positions", description = "Retrieve a list of all positions")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Position.class)))
+                    content = @Content(schema = @Schema(implementation = Position.class)))
     })
     @GetMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<Position>> getAllPositions(
             @Parameter(description = "Filter by portfolio ID") @RequestParam(required = false) Long portfolioId) {
-        List<Position> result = new ArrayList<>(positions.values());
-        if (portfolioId != null) {
-            result = result.stream()
-                    .filter(p -> portfolioId.equals(p.getPortfolioId()))
-                    .collect(Collectors.toList());
-        }
+        List<Position> result = portfolioId == null
+                ? positionStore.findAll()
+                : positionStore.findAll(p -> portfolioId.equals(p.getPortfolioId()));
         return ResponseEntity.ok(result);
     }
 
     @Operation(summary = "Get position by ID", description = "Retrieve a specific position by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved position",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Position.class))),
+                    content = @Content(schema = @Schema(implementation = Position.class))),
             @ApiResponse(responseCode = "404", description = "Position not found")
     })
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Position> getPositionById(
             @Parameter(description = "ID of the position to retrieve") @PathVariable Long id) {
-        Position position = positions.get(id);
+        Position position = positionStore.findById(id);
         if (position == null) {
             return ResponseEntity.notFound().build();
         }
@@ -65,34 +62,30 @@ public class PositionController {
     @Operation(summary = "Create a new position", description = "Create a new position in a portfolio")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Position created successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Position.class))),
+                    content = @Content(schema = @Schema(implementation = Position.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input")
     })
-    @PostMapping
+    @PostMapping(consumes = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Position> createPosition(@RequestBody Position position) {
-        Long id = idCounter.getAndIncrement();
-        position.setId(id);
-        positions.put(id, position);
+        positionStore.create(position);
         return ResponseEntity.status(HttpStatus.CREATED).body(position);
     }
 
     @Operation(summary = "Update a position", description = "Update an existing position by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Position updated successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Position.class))),
+                    content = @Content(schema = @Schema(implementation = Position.class))),
             @ApiResponse(responseCode = "404", description = "Position not found")
     })
-    @PutMapping("/{id}")
+    @PutMapping(value = "/{id}", consumes = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Position> updatePosition(
             @Parameter(description = "ID of the position to update") @PathVariable Long id,
             @RequestBody Position position) {
-        if (!positions.containsKey(id)) {
+        if (!positionStore.update(id, position)) {
             return ResponseEntity.notFound().build();
         }
-        position.setId(id);
-        positions.put(id, position);
         return ResponseEntity.ok(position);
     }
 
@@ -105,10 +98,9 @@ public class PositionController {
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Void> deletePosition(
             @Parameter(description = "ID of the position to delete") @PathVariable Long id) {
-        if (!positions.containsKey(id)) {
+        if (!positionStore.delete(id)) {
             return ResponseEntity.notFound().build();
         }
-        positions.remove(id);
         return ResponseEntity.noContent().build();
     }
 }
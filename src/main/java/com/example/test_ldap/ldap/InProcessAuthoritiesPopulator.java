@@ -0,0 +1,53 @@
+package com.example.test_ldap.ldap;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchScope;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.ldap.userdetails.LdapAuthoritiesPopulator;
+
+// In-process counterpart of the DefaultLdapAuthoritiesPopulator set up in SecurityConfig:
+// every group below the group base with (member={user DN}) becomes an authority named after its cn,
+// upper-cased, without role prefix.
+public class InProcessAuthoritiesPopulator implements LdapAuthoritiesPopulator {
+
+    private static final String ROLE_ATTRIBUTE = "cn";
+
+    private final InMemoryDirectoryServer directoryServer;
+    private final String groupSearchBase;
+
+    public InProcessAuthoritiesPopulator(InMemoryDirectoryServer directoryServer, String groupSearchBase) {
+        this.directoryServer = directoryServer;
+        this.groupSearchBase = groupSearchBase;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getGrantedAuthorities(DirContextOperations userData, String username) {
+        try (LDAPConnection connection = directoryServer.getConnection()) {
+            SearchResult groups = connection.search(groupSearchBase, SearchScope.SUB,
+                  Filter.createEqualityFilter("member", userData.getNameInNamespace()), ROLE_ATTRIBUTE);
+
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (SearchResultEntry group : groups.getSearchEntries()) {
+                String role = group.getAttributeValue(ROLE_ATTRIBUTE);
+                if (role != null) {
+                    authorities.add(new SimpleGrantedAuthority(role.toUpperCase(Locale.ROOT)));
+                }
+            }
+            return authorities;
+        } catch (LDAPException e) {
+            throw new InternalAuthenticationServiceException("In-process LDAP group search failed", e);
+        }
+    }
+}
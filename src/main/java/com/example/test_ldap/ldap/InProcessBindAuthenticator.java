@@ -0,0 +1,76 @@
+package com.example.test_ldap.ldap;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchScope;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.ldap.authentication.LdapAuthenticator;
+import org.springframework.util.StringUtils;
+
+// Same steps as BindAuthenticator + FilterBasedLdapUserSearch (search (uid={0}) below the people base, then bind
+// with the found DN and the given password), but against the embedded UnboundID server through an in-process
+// connection: no socket, no JNDI, no LDAP protocol encoding. Only usable when the directory runs in this JVM.
+public class InProcessBindAuthenticator implements LdapAuthenticator {
+
+    private static final String PASSWORD_ATTRIBUTE = "userPassword";
+
+    private final InMemoryDirectoryServer directoryServer;
+    private final String userSearchBase;
+
+    public InProcessBindAuthenticator(InMemoryDirectoryServer directoryServer, String userSearchBase) {
+        this.directoryServer = directoryServer;
+        this.userSearchBase = userSearchBase;
+    }
+
+    @Override
+    public DirContextOperations authenticate(Authentication authentication) {
+        String username = authentication.getName();
+        String password = (String) authentication.getCredentials();
+        if (!StringUtils.hasLength(password)) {
+            throw new BadCredentialsException("Empty password");
+        }
+
+        try (LDAPConnection connection = directoryServer.getConnection()) {
+            SearchResultEntry user = connection.searchForEntry(
+                  userSearchBase, SearchScope.SUB, Filter.createEqualityFilter("uid", username));
+            if (user == null) {
+                throw new UsernameNotFoundException("User " + username + " not found in directory");
+            }
+
+            connection.bind(user.getDN(), password);
+
+            // Hand the entry to the authorities populator / user details mapper like BindAuthenticator does,
+            // minus the password
+            BasicAttributes attributes = new BasicAttributes(true);
+            for (Attribute attribute : user.getAttributes()) {
+                if (attribute.getName().equalsIgnoreCase(PASSWORD_ATTRIBUTE)) {
+                    continue;
+                }
+                BasicAttribute copy = new BasicAttribute(attribute.getName());
+                for (String value : attribute.getValues()) {
+                    copy.add(value);
+                }
+                attributes.put(copy);
+            }
+            return new DirContextAdapter(attributes, LdapUtils.newLdapName(user.getDN()));
+        } catch (LDAPException e) {
+            if (e.getResultCode() == ResultCode.INVALID_CREDENTIALS) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            throw new InternalAuthenticationServiceException("In-process LDAP authentication failed", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.test_ldap.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Sits in front of BasicAuthenticationFilter (see SecurityConfig): requests that will authenticate Basic credentials
+// are checked against the LoginRateLimiter first, and answered with 429 + Retry-After right here when
+// the client IP is over its rate or in backoff, or the username is in backoff for this client IP.
+// Those requests never reach the LDAP bind.
+//
+// Only actual authentication attempts are charged. Requests without (parseable) Basic credentials, and requests
+// whose session is already authenticated as the same user (BasicAuthenticationFilter skips those too), pass
+// through untouched. With the stateless "basic" profile every request is a Basic authentication (and an LDAP bind),
+// so bulk clients there count against the per-IP bucket with every call, see app.rate-limit.capacity.
+//
+// Chains with form login pass the matcher of the login processing URL and put this filter in front of
+// UsernamePasswordAuthenticationFilter instead: every form submission is an authentication attempt and is charged
+// with its "username" parameter, whatever the session already holds.
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final LoginRateLimiter loginRateLimiter;
+    private final RequestMatcher formLoginRequests;
+
+    public LoginRateLimitFilter(LoginRateLimiter loginRateLimiter) {
+        this(loginRateLimiter, null);
+    }
+
+    public LoginRateLimitFilter(LoginRateLimiter loginRateLimiter, RequestMatcher formLoginRequests) {
+        this.loginRateLimiter = loginRateLimiter;
+        this.formLoginRequests = formLoginRequests;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String username;
+        if (formLoginRequests != null && formLoginRequests.matches(request)) {
+            username = request.getParameter(UsernamePasswordAuthenticationFilter.SPRING_SECURITY_FORM_USERNAME_KEY);
+            if (username == null) {
+                username = "";
+            }
+        } else {
+            username = basicUsername(request.getHeader(HttpHeaders.AUTHORIZATION));
+            if (username != null && isAuthenticatedAs(username)) {
+                username = null;
+            }
+        }
+        if (username != null) {
+            long retryAfterNanos = loginRateLimiter.tryAcquire(username, request.getRemoteAddr());
+            if (retryAfterNanos > 0) {
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isAuthenticatedAs(String username) {
+        Authentication current = SecurityContextHolder.getContext().getAuthentication();
+        return current instanceof UsernamePasswordAuthenticationToken
+                && current.isAuthenticated()
+                && current.getName().equals(username);
+    }
+
+    private static String basicUsername(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            return null;
+        }
+        String token;
+        try {
+            token = new String(Base64.getDecoder().decode(authorization.substring(BASIC_PREFIX.length()).trim()),
+                    StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = token.indexOf(':');
+        return colon < 0 ? null : token.substring(0, colon);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.test_ldap.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+// Decides whether a login attempt may go on to the LDAP bind, see LoginRateLimitFilter.
+//
+// - per client IP, a token bucket (capacity, refill-per-second) limiting the attempt rate, kept as a single
+//   "theoretical arrival time" (GCRA) that is advanced with CAS, so checks are lock-free
+// - exponential backoff after consecutive bad credentials, per (username, client IP) pair and per client IP:
+//   once more than user-failures-before-backoff / ip-failures-before-backoff attempts failed, the key is blocked
+//   for initial-backoff, doubling with every further failure up to max-backoff. A successful login resets the pair,
+//   failure counts expire after max-backoff without failures.
+//   Failures are deliberately not counted per username alone, that would let anybody lock out a user by
+//   sending a few wrong passwords for them.
+//
+// Usernames are keyed case-insensitively, like uid matching in LDAP.
+//
+// At most max-tracked-keys keys are kept. Keys without information (full bucket, no recent failures) are swept
+// at most once per second when the limit is reached. If that frees nothing, new pairs are not tracked (the
+// client IP's own backoff still applies) and new client IPs share one overflow bucket.
+@Component
+public class LoginRateLimiter {
+
+    private static final String LOGIN_PREFIX = "login:";
+    private static final String IP_PREFIX = "ip:";
+    // Shared by the client IPs first seen while max-tracked-keys is reached
+    private static final String OVERFLOW_IP_KEY = IP_PREFIX + "*";
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final ConcurrentHashMap<String, KeyState> states = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final int userFailuresBeforeBackoff;
+    private final int ipFailuresBeforeBackoff;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final int maxTrackedKeys;
+
+    public LoginRateLimiter(@Value("${app.rate-limit.capacity:100}") int capacity,
+                            @Value("${app.rate-limit.refill-per-second:50}") double refillPerSecond,
+                            @Value("${app.rate-limit.user-failures-before-backoff:3}") int userFailuresBeforeBackoff,
+                            @Value("${app.rate-limit.ip-failures-before-backoff:20}") int ipFailuresBeforeBackoff,
+                            @Value("${app.rate-limit.initial-backoff:1s}") Duration initialBackoff,
+                            @Value("${app.rate-limit.max-backoff:5m}") Duration maxBackoff,
+                            @Value("${app.rate-limit.max-tracked-keys:100000}") int maxTrackedKeys) {
+        this.emissionIntervalNanos = (long) (Duration.ofSeconds(1).toNanos() / refillPerSecond);
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.userFailuresBeforeBackoff = userFailuresBeforeBackoff;
+        this.ipFailuresBeforeBackoff = ipFailuresBeforeBackoff;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    // Returns 0 if the attempt may proceed, otherwise the nanoseconds until the caller should retry
+    public long tryAcquire(String username, String clientIp) {
+        long now = System.nanoTime();
+        KeyState ip = ipState(clientIp, now);
+        // Pairs are only tracked once they failed, a lookup is enough here
+        KeyState login = states.get(loginKey(username, clientIp));
+
+        long blocked = Math.max(ip.blockedFor(now), login == null ? 0 : login.blockedFor(now));
+        if (blocked > 0) {
+            return blocked;
+        }
+        return ip.take(now);
+    }
+
+    @EventListener
+    public void onBadCredentials(AuthenticationFailureBadCredentialsEvent event) {
+        long now = System.nanoTime();
+        Authentication authentication = event.getAuthentication();
+        String clientIp = clientIp(authentication);
+        ipState(clientIp, now).recordFailure(now, ipFailuresBeforeBackoff);
+        KeyState login = trackedState(loginKey(authentication.getName(), clientIp), now);
+        if (login != null) {
+            login.recordFailure(now, userFailuresBeforeBackoff);
+        }
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        Authentication authentication = event.getAuthentication();
+        states.remove(loginKey(authentication.getName(), clientIp(authentication)));
+    }
+
+    // Forgets all buckets and failure counts, e.g. between tests
+    public void clear() {
+        states.clear();
+    }
+
+    private static String loginKey(String username, String clientIp) {
+        return LOGIN_PREFIX + username.toLowerCase(Locale.ROOT) + "|" + clientIp;
+    }
+
+    private static String clientIp(Authentication authentication) {
+        return authentication.getDetails() instanceof WebAuthenticationDetails details && details.getRemoteAddress() != null
+                ? details.getRemoteAddress()
+                : "unknown";
+    }
+
+    private KeyState ipState(String clientIp, long now) {
+        KeyState state = trackedState(IP_PREFIX + clientIp, now);
+        return state != null ? state : states.computeIfAbsent(OVERFLOW_IP_KEY, k -> new KeyState(now));
+    }
+
+    // null if the key is new and max-tracked-keys is reached
+    private KeyState trackedState(String key, long now) {
+        KeyState state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+        if (states.size() >= maxTrackedKeys) {
+            evictIdle(now);
+            if (states.size() >= maxTrackedKeys) {
+                return null;
+            }
+        }
+        return states.computeIfAbsent(key, k -> new KeyState(now));
+    }
+
+    // Drops keys that have a full bucket and no recent failures, they carry no information.
+    // At most one sweep per SWEEP_INTERVAL_NANOS, callers in between go on without waiting.
+    private void evictIdle(long now) {
+        long next = nextSweep.get();
+        if (now - next < 0 || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        states.values().removeIf(state -> state.isIdle(now));
+    }
+
+    private record Failures(int count, long lastFailure, long blockedUntil) {
+        static final Failures NONE = new Failures(0, 0, 0);
+    }
+
+    private final class KeyState {
+
+        // GCRA: the bucket is empty once the theoretical arrival time is more than burstNanos ahead of now
+        private final AtomicLong theoreticalArrival;
+        private final AtomicReference<Failures> failures = new AtomicReference<>(Failures.NONE);
+
+        KeyState(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        long take(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + emissionIntervalNanos;
+                if (next - now > burstNanos) {
+                    return next - now - burstNanos;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        long blockedFor(long now) {
+            Failures current = failures.get();
+            return current.count() == 0 ? 0 : Math.max(0, current.blockedUntil() - now);
+        }
+
+        void recordFailure(long now, int failuresBeforeBackoff) {
+            failures.updateAndGet(current -> {
+                boolean expired = current.count() > 0 && now - current.lastFailure() > maxBackoffNanos;
+                int count = expired ? 1 : current.count() + 1;
+                long blockedUntil = count > failuresBeforeBackoff
+                        ? now + backoff(count - failuresBeforeBackoff)
+                        : 0;
+                return new Failures(count, now, blockedUntil);
+            });
+        }
+
+        // initial-backoff * 2^(excessFailures - 1), capped at max-backoff
+        private long backoff(int excessFailures) {
+            long backoff = initialBackoffNanos;
+            for (int i = 1; i < excessFailures && backoff < maxBackoffNanos; i++) {
+                backoff *= 2;
+            }
+            return Math.min(backoff, maxBackoffNanos);
+        }
+
+        boolean isIdle(long now) {
+            Failures current = failures.get();
+            boolean failuresExpired = current.count() == 0 || now - current.lastFailure() > maxBackoffNanos;
+            // Same as a freshly created key
+            return failuresExpired && theoreticalArrival.get() <= now;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.test_ldap.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+// Per-JVM entity store backing the REST controllers.
+// Every successful write bumps the store version, so derived data (e.g. serialized responses in
+// SerializedResponseCache) can be checked for staleness with a single volatile read.
+//
+// In cluster mode (see enableReplication) the store behaves as a last-writer-wins map:
+// - ids are interleaved per node (nodeIndex, nodeIndex + clusterSize, ...), so nodes never hand out the same id,
+//   and start from a per-startup epoch, so a restarted node does not hand out the ids of its previous run again
+// - every entry carries a hybrid logical clock stamp, remote writes only win if they are newer
+// - deletes leave a tombstone behind, so a delayed update from another node cannot resurrect the entity.
+//   Tombstones are kept until purgeTombstones drops them, ClusterReplicator does that once every peer has
+//   received them and they are older than app.cluster.tombstone-horizon
+//
+// Scans (findAll, snapshot) read an immutable StoreSnapshot instead of iterating the live map:
+// - writers run concurrently with each other, they only hold snapshotLock in *shared* mode while they
+//   change the map and bump the version
+// - the first reader after a write copies the live entities without blocking anybody, seqlock style: the copy
+//   is only published if no write was in progress before and after it and the version did not move meanwhile,
+//   so it matches exactly one version. Otherwise it tries again.
+// - only a reader whose copies keep overlapping with writes takes snapshotLock exclusively (blocking writers
+//   for one copy) to guarantee progress
+// - every further reader of that version gets the published snapshot from a volatile read, no lock, no copy
+public abstract class InMemoryStore<T> {
+
+    private static final int OPTIMISTIC_SNAPSHOT_ATTEMPTS = 4;
+
+    // Ids handed out per millisecond of uptime a node's previous run would have to exceed on average to
+    // overlap with the ids of the restarted node (64 per ms = 64000 creates per second)
+    private static final long IDS_PER_MILLI = 64;
+    private static final long EPOCH_START_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+
+    private final ConcurrentHashMap<Long, StoreEntry<T>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(1);
+    private volatile long firstSequence = 1;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final List<StoreListener<T>> listeners = new CopyOnWriteArrayList<>();
+    private final StampedLock snapshotLock = new StampedLock();
+    private final AtomicReference<StoreSnapshot<T>> snapshot = new AtomicReference<>(new StoreSnapshot<>(0, List.of()));
+
+    private volatile int nodeIndex = 0;
+    private volatile int clusterSize = 1;
+    private volatile boolean keepTombstones = false;
+
+    protected abstract void assignId(T entity, Long id);
+
+    // Must be called before the first write
+    public void enableReplication(int nodeIndex, int clusterSize) {
+        if (nodeIndex < 0 || nodeIndex >= clusterSize) {
+            throw new IllegalArgumentException("Node index " + nodeIndex + " out of range for cluster size " + clusterSize);
+        }
+        this.nodeIndex = nodeIndex;
+        this.clusterSize = clusterSize;
+        this.keepTombstones = true;
+        // The node's previous run (if any) started earlier, so its ids are below this one's,
+        // e.g. 2026-10-19 -> ~5.7e12 * clusterSize, well within the 2^53 a JavaScript client can represent
+        this.firstSequence = (System.currentTimeMillis() - EPOCH_START_MILLIS) * IDS_PER_MILLI;
+        sequence.accumulateAndGet(firstSequence, Math::max);
+    }
+
+    public void addListener(StoreListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    // Consistent point-in-time view of all entities, see class comment
+    public StoreSnapshot<T> snapshot() {
+        for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+            StoreSnapshot<T> current = snapshot.get();
+            long currentVersion = version.get();
+            if (current.version() == currentVersion) {
+                return current;
+            }
+            // Writers hold the read lock from their map change until after the version bump. A copy that
+            // starts and ends with no writer active and the version unchanged saw exactly the writes up to it.
+            if (snapshotLock.isReadLocked()) {
+                Thread.onSpinWait();
+                continue;
+            }
+            List<T> values = copyLiveValues();
+            if (!snapshotLock.isReadLocked() && version.get() == currentVersion) {
+                return publish(new StoreSnapshot<>(currentVersion, values));
+            }
+        }
+        long stamp = snapshotLock.writeLock();
+        try {
+            long currentVersion = version.get();
+            StoreSnapshot<T> current = snapshot.get();
+            return current.version() == currentVersion
+                    ? current
+                    : publish(new StoreSnapshot<>(currentVersion, copyLiveValues()));
+        } finally {
+            snapshotLock.unlockWrite(stamp);
+        }
+    }
+
+    public List<T> findAll() {
+        return snapshot().values();
+    }
+
+    public List<T> findAll(Predicate<? super T> filter) {
+        return snapshot().values().stream()
+                .filter(filter)
+                .toList();
+    }
+
+    public T findById(Long id) {
+        StoreEntry<T> entry = entries.get(id);
+        return entry == null || entry.isDeleted() ? null : entry.value();
+    }
+
+    public T create(T entity) {
+        Long id = sequence.getAndIncrement() * clusterSize + nodeIndex;
+        assignId(entity, id);
+        StoreEntry<T> entry = new StoreEntry<>(id, entity, tick(), nodeIndex);
+        long stamp = snapshotLock.readLock();
+        try {
+            entries.put(id, entry);
+            version.incrementAndGet();
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+        written(StoreOperation.CREATE, entry);
+        return entity;
+    }
+
+    // Returns false if there is no entity with the given id
+    public boolean update(Long id, T entity) {
+        assignId(entity, id);
+        StoreEntry<T> entry = new StoreEntry<>(id, entity, tick(), nodeIndex);
+        boolean[] replaced = {false};
+        long stamp = snapshotLock.readLock();
+        try {
+            entries.computeIfPresent(id, (key, current) -> {
+                if (current.isDeleted()) {
+                    return current;
+                }
+                replaced[0] = true;
+                // Only loses if a newer write from another node was merged since tick(), same outcome as on that node
+                return entry.isNewerThan(current) ? entry : current;
+            });
+            if (!replaced[0]) {
+                return false;
+            }
+            version.incrementAndGet();
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+        written(StoreOperation.UPDATE, entry);
+        return true;
+    }
+
+    // Returns false if there is no entity with the given id
+    public boolean delete(Long id) {
+        StoreEntry<T> tombstone = new StoreEntry<>(id, null, tick(), nodeIndex);
+        boolean[] removed = {false};
+        long stamp = snapshotLock.readLock();
+        try {
+            entries.computeIfPresent(id, (key, current) -> {
+                if (current.isDeleted()) {
+                    return current;
+                }
+                removed[0] = true;
+                if (!tombstone.isNewerThan(current)) {
+                    return current;
+                }
+                return keepTombstones ? tombstone : null;
+            });
+            if (!removed[0]) {
+                return false;
+            }
+            version.incrementAndGet();
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+        written(StoreOperation.DELETE, tombstone);
+        return true;
+    }
+
+    // Merges a write replicated from another cluster node, returns false if the local entry is newer
+    public boolean apply(StoreEntry<T> remote) {
+        // Local stamps stay ahead of everything seen so far, local ids ahead of everything handed out before a restart
+        clock.accumulateAndGet(remote.stamp(), Math::max);
+        sequence.accumulateAndGet(remote.id() / clusterSize + 1, Math::max);
+
+        boolean[] applied = {false};
+        long stamp = snapshotLock.readLock();
+        try {
+            entries.compute(remote.id(), (key, current) -> {
+                if (current != null && !remote.isNewerThan(current)) {
+                    return current;
+                }
+                applied[0] = true;
+                return remote;
+            });
+            if (applied[0]) {
+                version.incrementAndGet();
+            }
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+        return applied[0];
+    }
+
+    // Drops tombstones stamped before the given clock value, returns how many. A replicated write older than a
+    // dropped tombstone would resurrect the entity, so only call this for tombstones all peers have seen.
+    // Tombstones are invisible to scans, so this does not change the store version.
+    public int purgeTombstones(long stampBefore) {
+        int purged = 0;
+        for (StoreEntry<T> entry : entries.values()) {
+            // Conditional remove: loses against a newer write merged meanwhile
+            if (entry.isDeleted() && entry.stamp() < stampBefore && entries.remove(entry.id(), entry)) {
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    // All entries including tombstones, for bringing a (re)starting cluster node up to date
+    public List<StoreEntry<T>> exportEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    // Drops all entities and restarts ids at 1 (at the startup epoch in cluster mode), e.g. to reset shared
+    // test fixtures between tests. Local only, not replicated to other cluster nodes.
+    public void clear() {
+        long stamp = snapshotLock.readLock();
+        try {
+            entries.clear();
+            sequence.set(firstSequence);
+            version.incrementAndGet();
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    private List<T> copyLiveValues() {
+        return entries.values().stream()
+                .filter(entry -> !entry.isDeleted())
+                .map(StoreEntry::value)
+                .toList();
+    }
+
+    // Readers may finish their copies out of order, never replace a snapshot with an older one
+    private StoreSnapshot<T> publish(StoreSnapshot<T> built) {
+        return snapshot.updateAndGet(current -> current.version() >= built.version() ? current : built);
+    }
+
+    // Hybrid logical clock: wall clock millis, but strictly increasing and never behind a stamp seen from a peer
+    private long tick() {
+        long now = System.currentTimeMillis();
+        return clock.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
+    // Called after the write is visible and snapshotLock released, listeners may take their time
+    private void written(StoreOperation operation, StoreEntry<T> entry) {
+        for (StoreListener<T> listener : listeners) {
+            listener.onLocalWrite(operation, entry);
+        }
+    }
+}
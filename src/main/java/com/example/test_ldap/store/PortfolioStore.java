@@ -0,0 +1,13 @@
+package com.example.test_ldap.store;
+
+import com.example.test_ldap.model.Portfolio;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PortfolioStore extends InMemoryStore<Portfolio> {
+
+    @Override
+    protected void assignId(Portfolio portfolio, Long id) {
+        portfolio.setId(id);
+    }
+}
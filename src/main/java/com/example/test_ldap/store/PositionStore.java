@@ -0,0 +1,13 @@
+package com.example.test_ldap.store;
+
+import com.example.test_ldap.model.Position;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PositionStore extends InMemoryStore<Position> {
+
+    @Override
+    protected void assignId(Position position, Long id) {
+        position.setId(id);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.test_ldap.store;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Versioned value of one store slot, also the unit of cluster replication.
+// value == null marks a deleted entity (tombstone), so deletes replicate and win over older updates.
+// Conflicting writes from different nodes are resolved last-writer-wins on (stamp, node).
+public record StoreEntry<T>(Long id, T value, long stamp, int node) {
+
+    @JsonIgnore
+    public boolean isDeleted() {
+        return value == null;
+    }
+
+    public boolean isNewerThan(StoreEntry<T> other) {
+        return stamp > other.stamp || (stamp == other.stamp && node > other.node);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.test_ldap.store;
+
+// Called on the writing thread after every successful local create / update / delete.
+// Writes received from other cluster nodes (InMemoryStore.apply) are not reported.
+@FunctionalInterface
+public interface StoreListener<T> {
+
+    void onLocalWrite(StoreOperation operation, StoreEntry<T> entry);
+}
@@ -0,0 +1,7 @@
+package com.example.test_ldap.store;
+
+public enum StoreOperation {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,8 @@
+package com.example.test_ldap.store;
+
+import java.util.List;
+
+// Immutable point-in-time view of an InMemoryStore: exactly the live entities after the write that produced
+// this version. Shared by all readers until the next write, never copied per reader.
+public record StoreSnapshot<T>(long version, List<T> values) {
+}
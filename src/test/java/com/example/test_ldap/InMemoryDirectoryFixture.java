@@ -0,0 +1,37 @@
+package com.example.test_ldap;
+
+import com.example.test_ldap.security.LoginRateLimiter;
+import com.example.test_ldap.store.InMemoryStore;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerSnapshot;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// Resets a shared (cached) Spring test context before each test instead of restarting it with @DirtiesContext:
+// - the embedded LDAP directory is restored from a snapshot of the freshly loaded LDIF (in-memory copy, no re-parse)
+// - the portfolio / position stores are cleared
+// - login rate limiting / backoff state is forgotten
+//
+// The snapshot is taken once per Spring context on its first test and reused for the rest of the test run.
+public class InMemoryDirectoryFixture implements BeforeEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(InMemoryDirectoryFixture.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws Exception {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        InMemoryDirectoryServer directoryServer = applicationContext.getBean(InMemoryDirectoryServer.class);
+
+        InMemoryDirectoryServerSnapshot snapshot = context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+                applicationContext, key -> directoryServer.createSnapshot(), InMemoryDirectoryServerSnapshot.class);
+        directoryServer.restoreSnapshot(snapshot);
+
+        ObjectProvider<InMemoryStore<?>> stores = applicationContext.getBeanProvider(ResolvableType.forClass(InMemoryStore.class));
+        stores.forEach(store -> store.clear());
+        applicationContext.getBean(LoginRateLimiter.class).clear();
+    }
+}
@@ -1,15 +1,17 @@
 package com.example.test_ldap;
 
 import com.example.test_ldap.model.Portfolio;
+import com.example.test_ldap.controller.ApiMediaTypes;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
-import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -17,11 +19,18 @@ import org.springframework.test.web.servlet.MvcResult;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
-
-@SpringBootTest
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// One shared context for all tests: authentication goes through in-process connections to the embedded directory
+// (no socket, free port for its listener), InMemoryDirectoryFixture resets directory and stores between tests
+@SpringBootTest(properties = {
+        "app.ldap.in-process=true",
+        "spring.ldap.embedded.port=0",
+        "app.audit.file=target/audit/audit.log"
+})
 @AutoConfigureMockMvc
 @ActiveProfiles("basic")
-@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(InMemoryDirectoryFixture.class)
 public class PortfolioControllerIntegrationTest {
 
     @Autowired
@@ -55,6 +64,36 @@ public class PortfolioControllerIntegrationTest {
                 .andReturn();
     }
 
+    @Test
+    void shouldBackOffAfterRepeatedBadCredentials() throws Exception {
+        // The first bad attempts reach LDAP and are rejected as usual
+        for (int attempt = 0; attempt < 4; attempt++) {
+            mockMvc.perform(get("/api/portfolios")
+                        .with(SecurityMockMvcRequestPostProcessors.httpBasic("user1", "wrongpassword")))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Then the username is in backoff for this client and rejected before authentication, even with the right password
+        mockMvc.perform(get("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("USER1", "user1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        // Other users from the same client are not affected
+        mockMvc.perform(get("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("user2", "user2")))
+                .andExpect(status().isOk());
+
+        // Neither is the same user from another client: failures from elsewhere cannot lock them out
+        mockMvc.perform(get("/api/portfolios")
+                    .with(request -> {
+                        request.setRemoteAddr("10.0.0.2");
+                        return request;
+                    })
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("user1", "user1")))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void shouldAuthenticateWithValidLdapCredentials() throws Exception {
         mockMvc.perform(get("/api/portfolios")
@@ -240,6 +279,33 @@ public class PortfolioControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldNegotiateCborAlongsideJson() throws Exception {
+        CBORMapper cborMapper = new CBORMapper();
+        Portfolio portfolio = new Portfolio(null, "Binary Portfolio", "Description", null);
+
+        // Create with a CBOR request body, ask for a CBOR response
+        MvcResult result = mockMvc.perform(post("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("user1", "user1"))
+                    .contentType(ApiMediaTypes.CBOR)
+                    .accept(ApiMediaTypes.CBOR)
+                    .content(cborMapper.writeValueAsBytes(portfolio)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(ApiMediaTypes.CBOR))
+                .andReturn();
+
+        Portfolio createdPortfolio = cborMapper.readValue(result.getResponse().getContentAsByteArray(), Portfolio.class);
+        assertEquals("Binary Portfolio", createdPortfolio.getName());
+        assertEquals("user1", createdPortfolio.getLdapUserName());
+
+        // Without an explicit Accept header (browsers, Swagger UI) JSON stays the default
+        mockMvc.perform(get("/api/portfolios/" + createdPortfolio.getId())
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("user1", "user1")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.name").value("Binary Portfolio"));
+    }
+
     @Test
     void shouldLoadRolesFromLdapGroups() throws Exception {
         // This test verifies that roles are loaded from LDAP groups
@@ -4,7 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 
-@SpringBootTest
+@SpringBootTest(properties = "app.audit.file=target/audit/audit.log")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
 class TestLdapApplicationTests {
 
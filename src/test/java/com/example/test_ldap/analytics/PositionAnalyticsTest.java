@@ -0,0 +1,84 @@
+package com.example.test_ldap.analytics;
+
+import com.example.test_ldap.model.Portfolio;
+import com.example.test_ldap.model.Position;
+import com.example.test_ldap.store.PortfolioStore;
+import com.example.test_ldap.store.PositionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionAnalyticsTest {
+
+    private PortfolioStore portfolioStore;
+    private PositionStore positionStore;
+    private PositionAnalytics analytics;
+    private Long user1Portfolio;
+    private Long user2Portfolio;
+
+    @BeforeEach
+    void setUp() {
+        portfolioStore = new PortfolioStore();
+        positionStore = new PositionStore();
+        analytics = new PositionAnalytics(portfolioStore, positionStore);
+        user1Portfolio = portfolioStore.create(new Portfolio(null, "Tech", "", "user1")).getId();
+        user2Portfolio = portfolioStore.create(new Portfolio(null, "Energy", "", "user2")).getId();
+    }
+
+    private void position(Long portfolioId, String symbol, double quantity, double purchasePrice, double currentPrice) {
+        positionStore.create(new Position(null, portfolioId, symbol, quantity, purchasePrice, currentPrice));
+    }
+
+    @Test
+    void shouldAggregateExposurePerSymbolAcrossParallelChunks() {
+        // Enough positions to take the parallel path
+        int count = PositionAnalytics.PARALLEL_THRESHOLD * 4;
+        IntStream.range(0, count).forEach(i -> position(user1Portfolio, i % 4 == 0 ? "MSFT" : "AAPL", 1, 10, 12));
+        position(user2Portfolio, "XOM", 10, 100, 80);
+
+        PositionAnalytics.ExposureReport report = analytics.exposure(analytics.book(null));
+
+        assertEquals(count + 1, report.positions());
+        assertEquals(count * 12 + 800, report.marketValue(), 1e-6);
+        assertEquals(count * 2 - 200, report.unrealizedPnl(), 1e-6);
+        assertEquals(List.of("AAPL", "MSFT", "XOM"),
+                report.symbols().stream().map(PositionAnalytics.SymbolExposure::symbol).toList());
+        assertEquals(count / 4 * 3, report.symbols().get(0).positions());
+    }
+
+    @Test
+    void shouldOnlyAggregateOwnPositionsForRegularUsers() {
+        position(user1Portfolio, "AAPL", 10, 100, 110);
+        position(user2Portfolio, "XOM", 10, 100, 80);
+
+        PositionAnalytics.Book book = analytics.book("user1");
+        List<PositionAnalytics.OwnerConcentration> concentration = analytics.concentration(book);
+
+        assertEquals(1, book.positions().size());
+        assertEquals(1, concentration.size());
+        assertEquals("user1", concentration.get(0).owner());
+        assertEquals("AAPL", concentration.get(0).topSymbol());
+        assertEquals(1.0, concentration.get(0).herfindahlIndex(), 1e-9);
+    }
+
+    @Test
+    void shouldReturnTopGainersAndLosers() {
+        for (int i = 1; i <= 50; i++) {
+            position(user1Portfolio, "G" + i, 1, 100, 100 + i);
+            position(user2Portfolio, "L" + i, 1, 100, 100 - i);
+        }
+        position(user1Portfolio, "FLAT", 1, 100, 100);
+
+        PositionAnalytics.Movers movers = analytics.movers(analytics.book(null), 3);
+
+        assertEquals(List.of("G50", "G49", "G48"),
+                movers.gainers().stream().map(PositionAnalytics.PositionMove::symbol).toList());
+        assertEquals(List.of("L50", "L49", "L48"),
+                movers.losers().stream().map(PositionAnalytics.PositionMove::symbol).toList());
+        assertEquals(50.0, movers.gainers().get(0).changePercent(), 1e-9);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.test_ldap.audit;
+
+import com.example.test_ldap.model.Portfolio;
+import com.example.test_ldap.store.PortfolioStore;
+import com.example.test_ldap.store.PositionStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    private Path directory;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private AuditLog auditLog(Path file, DataSize maxFileSize, int maxHistory) {
+        return new AuditLog(objectMapper, file.toString(), maxFileSize, maxHistory, 1024);
+    }
+
+    private static AuditEvent login(String principal) {
+        return new AuditEvent(Instant.now(), AuditEventType.LOGIN_SUCCESS, principal, null, null, null);
+    }
+
+    private List<JsonNode> readLines(Path file) throws Exception {
+        return Files.readAllLines(file).stream()
+                .map(line -> {
+                    try {
+                        return objectMapper.readTree(line);
+                    } catch (Exception e) {
+                        throw new AssertionError("Not a JSON line: " + line, e);
+                    }
+                })
+                .toList();
+    }
+
+    @Test
+    void shouldAppendToExistingFileInsteadOfRollingOnStartup() throws Exception {
+        Path file = directory.resolve("audit.log");
+        String previousRun = objectMapper.writeValueAsString(login("before-restart")) + "\n";
+        Files.writeString(file, previousRun);
+
+        AuditLog auditLog = auditLog(file, DataSize.ofMegabytes(1), 5);
+        auditLog.record(login("after-restart"));
+        auditLog.close();
+
+        List<JsonNode> lines = readLines(file);
+        assertEquals(2, lines.size());
+        assertEquals("before-restart", lines.get(0).get("principal").asText());
+        assertEquals("after-restart", lines.get(1).get("principal").asText());
+        assertFalse(Files.exists(directory.resolve("audit.log.1")));
+    }
+
+    private static void awaitWritten(AuditLog auditLog, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (auditLog.stats().written() < count) {
+            assertTrue(System.nanoTime() < deadline, "Writer did not write " + count + " events");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void shouldWakeIdleWriterOnRecord() throws Exception {
+        AuditLog auditLog = auditLog(directory.resolve("audit.log"), DataSize.ofMegabytes(1), 5);
+        auditLog.record(login("first"));
+        awaitWritten(auditLog, 1);
+
+        // Give the writer time to park with nothing to do, record() has to wake it
+        Thread.sleep(100);
+        auditLog.record(login("second"));
+        awaitWritten(auditLog, 2);
+        auditLog.close();
+    }
+
+    @Test
+    void shouldRollWhenMaxFileSizeIsReached() throws Exception {
+        Path file = directory.resolve("audit.log");
+        DataSize maxFileSize = DataSize.ofBytes(300);
+
+        AuditLog auditLog = auditLog(file, maxFileSize, 2);
+        for (int i = 0; i < 50; i++) {
+            auditLog.record(login("user" + i));
+        }
+        auditLog.close();
+
+        assertEquals(50, auditLog.stats().written());
+        for (Path path : List.of(file, directory.resolve("audit.log.1"), directory.resolve("audit.log.2"))) {
+            assertTrue(Files.size(path) <= maxFileSize.toBytes(), path + " exceeds the size limit");
+            assertFalse(readLines(path).isEmpty());
+        }
+        // Only max-history old files are kept
+        assertFalse(Files.exists(directory.resolve("audit.log.3")));
+        // The newest events are in the current file
+        List<JsonNode> current = readLines(file);
+        assertEquals("user49", current.get(current.size() - 1).get("principal").asText());
+    }
+
+    @Test
+    void shouldRecordStoreMutationsAndLoginFailures() throws Exception {
+        Path file = directory.resolve("audit.log");
+        AuditLog auditLog = auditLog(file, DataSize.ofMegabytes(1), 5);
+        PortfolioStore portfolioStore = new PortfolioStore();
+        AuditEventListener listener = new AuditEventListener(auditLog, portfolioStore, new PositionStore());
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", "admin123"));
+        Long id = portfolioStore.create(new Portfolio(null, "Audited", "Description", "admin")).getId();
+        portfolioStore.delete(id);
+        listener.onAuthenticationFailure(new AuthenticationFailureBadCredentialsEvent(
+                new UsernamePasswordAuthenticationToken("user1", "wrong"), new BadCredentialsException("Bad credentials")));
+        auditLog.close();
+
+        List<JsonNode> lines = readLines(file);
+        assertEquals(3, lines.size());
+        assertEquals("CREATE", lines.get(0).get("type").asText());
+        assertEquals("admin", lines.get(0).get("principal").asText());
+        assertEquals("portfolio", lines.get(0).get("resource").asText());
+        assertEquals(id.longValue(), lines.get(0).get("resourceId").asLong());
+        assertEquals("DELETE", lines.get(1).get("type").asText());
+        assertEquals("LOGIN_FAILURE", lines.get(2).get("type").asText());
+        assertEquals("user1", lines.get(2).get("principal").asText());
+        assertEquals("BadCredentialsException", lines.get(2).get("detail").asText());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.test_ldap.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    @Test
+    void shouldRoundCapacityUpToPowerOfTwo() {
+        assertEquals(8, new AuditRingBuffer<String>(5).capacity());
+        assertEquals(8, new AuditRingBuffer<String>(8).capacity());
+        assertEquals(1, new AuditRingBuffer<String>(1).capacity());
+    }
+
+    @Test
+    void shouldDrainInOfferOrder() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+
+        // Wrap around the end of the slot array a few times
+        for (int round = 0; round < 3; round++) {
+            assertTrue(buffer.offer(round * 3));
+            assertTrue(buffer.offer(round * 3 + 1));
+            assertTrue(buffer.offer(round * 3 + 2));
+            assertEquals(3, buffer.drain(drained::add, 10));
+        }
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), drained);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void shouldRejectOffersWhenFullWithoutBlocking() {
+        AuditRingBuffer<String> buffer = new AuditRingBuffer<>(2);
+
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+        assertFalse(buffer.offer("c"));
+
+        // Room again once the consumer caught up
+        assertEquals(1, buffer.drain(e -> { }, 1));
+        assertTrue(buffer.offer("c"));
+    }
+
+    @Test
+    void shouldNotLoseOrDuplicateElementsWithConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(1024);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    // Producers spin on a full buffer here only to make the test deterministic
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        start.countDown();
+        while (seen.size() < producers * perProducer) {
+            buffer.drain(element -> assertTrue(seen.add(element), "duplicate " + element), 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * perProducer, seen.size());
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.test_ldap.cache;
+
+import com.example.test_ldap.InMemoryDirectoryFixture;
+import com.example.test_ldap.model.Portfolio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.response-cache.enabled=true",
+        "app.ldap.in-process=true",
+        "spring.ldap.embedded.port=0",
+        "app.audit.file=target/audit/audit.log"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("basic")
+@ExtendWith(InMemoryDirectoryFixture.class)
+class ResponseCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SerializedResponseCache cache;
+
+    private void createPortfolio(String username, String password, String name) throws Exception {
+        mockMvc.perform(post("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic(username, password))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new Portfolio(null, name, "Description", null))))
+                .andExpect(status().isCreated());
+    }
+
+    private MvcResult getPortfolios(String username, String password) throws Exception {
+        return mockMvc.perform(get("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic(username, password)))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    @Test
+    void shouldServeRepeatedRequestFromCache() throws Exception {
+        createPortfolio("user1", "user1", "User1 Portfolio");
+
+        long hits = cache.stats().hits();
+        String first = getPortfolios("user1", "user1").getResponse().getContentAsString();
+        String second = getPortfolios("user1", "user1").getResponse().getContentAsString();
+
+        assertEquals(first, second);
+        assertEquals(hits + 1, cache.stats().hits());
+    }
+
+    @Test
+    void shouldNotServeOneUsersListToAnother() throws Exception {
+        createPortfolio("user1", "user1", "User1 Portfolio");
+        createPortfolio("user2", "user2", "User2 Portfolio");
+        getPortfolios("user1", "user1");
+
+        // Same URL and Accept, different caller scope
+        mockMvc.perform(get("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("user2", "user2")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].ldapUserName").value("user2"));
+    }
+
+    @Test
+    void shouldInvalidateCachedResponsesOnWrite() throws Exception {
+        createPortfolio("user1", "user1", "First");
+        getPortfolios("user1", "user1");
+
+        createPortfolio("user1", "user1", "Second");
+
+        mockMvc.perform(get("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("user1", "user1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void shouldServeGzipVariantFromCache() throws Exception {
+        // Enough portfolios for the body to be worth compressing
+        for (int i = 0; i < 10; i++) {
+            createPortfolio("admin", "admin123", "Admin Portfolio " + i);
+        }
+        byte[] identity = getPortfolios("admin", "admin123").getResponse().getContentAsByteArray();
+
+        MvcResult result = mockMvc.perform(get("/api/portfolios")
+                    .with(SecurityMockMvcRequestPostProcessors.httpBasic("admin", "admin123"))
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertArrayEquals(identity, in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.test_ldap.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedResponseCacheTest {
+
+    private static final String JSON = "application/json";
+
+    private static byte[] body(int size) {
+        return "x".repeat(size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void shouldReturnCachedBodyForSameStoreVersion() throws Exception {
+        SerializedResponseCache cache = new SerializedResponseCache(1024 * 1024);
+        byte[] body = body(1000);
+
+        cache.put("/api/portfolios|admin|", 1, JSON, body);
+
+        SerializedResponseCache.Entry entry = cache.get("/api/portfolios|admin|", 1);
+        assertNotNull(entry);
+        assertEquals(JSON, entry.contentType());
+        assertArrayEquals(body, entry.identity());
+        // Pre-compressed variant decompresses to the same bytes
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(entry.gzip()))) {
+            assertArrayEquals(body, in.readAllBytes());
+        }
+        assertNotNull(entry.deflate());
+    }
+
+    @Test
+    void shouldNotCompressSmallBodies() {
+        SerializedResponseCache cache = new SerializedResponseCache(1024 * 1024);
+
+        cache.put("/api/positions|user:user1|", 1, JSON, body(10));
+
+        SerializedResponseCache.Entry entry = cache.get("/api/positions|user:user1|", 1);
+        assertNotNull(entry);
+        assertNull(entry.gzip());
+        assertNull(entry.deflate());
+    }
+
+    @Test
+    void shouldInvalidateAllEntriesWhenStoreVersionMovesOn() {
+        SerializedResponseCache cache = new SerializedResponseCache(1024 * 1024);
+        cache.put("/api/portfolios|admin|", 1, JSON, body(10));
+        cache.put("/api/portfolios|user:user1|", 1, JSON, body(10));
+
+        // A write happened in between
+        assertNull(cache.get("/api/portfolios|admin|", 2));
+        assertNull(cache.get("/api/portfolios|user:user1|", 2));
+        assertEquals(0, cache.stats().entries());
+
+        // A response rendered before the write must not be cached afterwards
+        cache.put("/api/portfolios|admin|", 1, JSON, body(10));
+        assertNull(cache.get("/api/portfolios|admin|", 2));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWhenOverLimit() {
+        // Room for two uncompressed 100 byte bodies
+        SerializedResponseCache cache = new SerializedResponseCache(250);
+        cache.put("a", 1, JSON, body(100));
+        cache.put("b", 1, JSON, body(100));
+
+        // Touch "a", so "b" is the least recently used one
+        assertNotNull(cache.get("a", 1));
+        cache.put("c", 1, JSON, body(100));
+
+        assertNotNull(cache.get("a", 1));
+        assertNull(cache.get("b", 1));
+        assertNotNull(cache.get("c", 1));
+        assertEquals(200, cache.stats().bytes());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void shouldNotCacheBodiesLargerThanLimit() {
+        SerializedResponseCache cache = new SerializedResponseCache(100);
+
+        cache.put("a", 1, JSON, body(150));
+
+        assertNull(cache.get("a", 1));
+        assertEquals(0, cache.stats().bytes());
+    }
+}
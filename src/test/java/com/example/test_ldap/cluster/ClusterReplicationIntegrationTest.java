@@ -0,0 +1,166 @@
+package com.example.test_ldap.cluster;
+
+import com.example.test_ldap.TestLdapApplication;
+import com.example.test_ldap.model.Portfolio;
+import com.example.test_ldap.model.Position;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two cluster nodes in one JVM, each with its own embedded Tomcat and LDAP server, talking over loopback
+class ClusterReplicationIntegrationTest {
+
+    private static ConfigurableApplicationContext node0;
+    private static ConfigurableApplicationContext node1;
+    private static String node0Url;
+    private static String node1Url;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int port0 = freePort();
+        int port1 = freePort();
+        node0Url = "http://localhost:" + port0;
+        node1Url = "http://localhost:" + port1;
+        node0 = startNode(0, port0, node1Url);
+        node1 = startNode(1, port1, node0Url);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (node0 != null) {
+            node0.close();
+        }
+        if (node1 != null) {
+            node1.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(int nodeIndex, int port, String peerUrl) {
+        // Command line arguments, properties(...) would only be defaults and lose against application-cluster.yaml
+        return new SpringApplicationBuilder(TestLdapApplication.class)
+                .profiles("cluster")
+                .run(
+                        "--server.port=" + port,
+                        "--app.cluster.node-index=" + nodeIndex,
+                        "--app.cluster.peers=" + peerUrl,
+                        "--app.cluster.secret=test-secret",
+                        "--app.audit.file=target/cluster-node-" + nodeIndex + "/audit.log");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static RestClient client(String baseUrl, String username, String password) {
+        return RestClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeaders(headers -> headers.setBasicAuth(username, password))
+                .build();
+    }
+
+    // Replication is asynchronous, poll the other node for a while
+    private static <T> T eventually(Supplier<T> check) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            T result = check.get();
+            if (result != null) {
+                return result;
+            }
+            Thread.sleep(100);
+        }
+        return fail("Condition not met within 10 seconds");
+    }
+
+    @Test
+    void shouldReplicateWritesToOtherNode() throws Exception {
+        RestClient adminOnNode0 = client(node0Url, "admin", "admin123");
+        RestClient adminOnNode1 = client(node1Url, "admin", "admin123");
+
+        Portfolio created = adminOnNode0.post()
+                .uri("/api/portfolios")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new Portfolio(null, "Replicated Portfolio", "Description", null))
+                .retrieve()
+                .body(Portfolio.class);
+        assertNotNull(created);
+
+        // Readable on the other node
+        Portfolio replicated = eventually(() -> {
+            try {
+                return adminOnNode1.get().uri("/api/portfolios/" + created.getId()).retrieve().body(Portfolio.class);
+            } catch (HttpClientErrorException.NotFound e) {
+                return null;
+            }
+        });
+        assertEquals("Replicated Portfolio", replicated.getName());
+        assertEquals("admin", replicated.getLdapUserName());
+
+        // Update on the other node replicates back
+        replicated.setName("Renamed on node 1");
+        adminOnNode1.put()
+                .uri("/api/portfolios/" + created.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(replicated)
+                .retrieve()
+                .toBodilessEntity();
+        eventually(() -> {
+            Portfolio onNode0 = adminOnNode0.get().uri("/api/portfolios/" + created.getId()).retrieve().body(Portfolio.class);
+            return "Renamed on node 1".equals(onNode0.getName()) ? onNode0 : null;
+        });
+
+        // Delete replicates as well
+        adminOnNode0.delete().uri("/api/portfolios/" + created.getId()).retrieve().toBodilessEntity();
+        eventually(() -> {
+            try {
+                adminOnNode1.get().uri("/api/portfolios/" + created.getId()).retrieve().toBodilessEntity();
+                return null;
+            } catch (HttpClientErrorException.NotFound e) {
+                return e;
+            }
+        });
+    }
+
+    @Test
+    void shouldNotHandOutSameIdOnDifferentNodes() {
+        RestClient adminOnNode0 = client(node0Url, "admin", "admin123");
+        RestClient adminOnNode1 = client(node1Url, "admin", "admin123");
+        Position position = new Position(null, 1L, "AAPL", 10.0, 150.0, 175.0);
+
+        Position onNode0 = adminOnNode0.post().uri("/api/positions")
+                .contentType(MediaType.APPLICATION_JSON).body(position).retrieve().body(Position.class);
+        Position onNode1 = adminOnNode1.post().uri("/api/positions")
+                .contentType(MediaType.APPLICATION_JSON).body(position).retrieve().body(Position.class);
+
+        assertNotEquals(onNode0.getId(), onNode1.getId());
+    }
+
+    @Test
+    void shouldRejectReplicationWithoutClusterSecret() {
+        HttpClientErrorException exception = assertThrows(HttpClientErrorException.class, () ->
+                RestClient.create(node0Url).get().uri("/internal/cluster/state").retrieve().toBodilessEntity());
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+    }
+
+    @Test
+    void shouldRefuseToStartWithoutClusterSecret() {
+        Exception exception = assertThrows(Exception.class, () -> new SpringApplicationBuilder(TestLdapApplication.class)
+                .profiles("cluster")
+                .run("--server.port=0", "--app.cluster.node-index=0", "--app.cluster.secret= ",
+                        "--app.audit.file=target/cluster-no-secret/audit.log"));
+        assertInstanceOf(IllegalStateException.class, NestedExceptionUtils.getMostSpecificCause(exception));
+    }
+}
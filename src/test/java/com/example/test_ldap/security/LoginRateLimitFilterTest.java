@@ -0,0 +1,71 @@
+package com.example.test_ldap.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+class LoginRateLimitFilterTest {
+
+    private static MockHttpServletResponse filter(LoginRateLimitFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest formLogin(String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.addParameter("username", username);
+        request.addParameter("password", "wrong");
+        return request;
+    }
+
+    @Test
+    void shouldThrottleFormLoginByUsernameParameter() throws Exception {
+        LoginRateLimiter limiter = new LoginRateLimiter(100, 50, 3, 20,
+                Duration.ofSeconds(1), Duration.ofMinutes(5), 1000);
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(limiter, antMatcher(HttpMethod.POST, "/login"));
+        for (int i = 0; i < 4; i++) {
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken("user1", "wrong");
+            authentication.setDetails(new WebAuthenticationDetails("10.0.0.1", null));
+            limiter.onBadCredentials(new AuthenticationFailureBadCredentialsEvent(
+                    authentication, new BadCredentialsException("Bad credentials")));
+        }
+
+        MockHttpServletResponse refused = filter(filter, formLogin("user1"));
+        assertEquals(429, refused.getStatus());
+        assertNotNull(refused.getHeader("Retry-After"));
+        assertEquals(200, filter(filter, formLogin("user2")).getStatus());
+    }
+
+    @Test
+    void shouldChargeEveryFormLoginAgainstTheClientIpBucket() throws Exception {
+        // Bucket of two attempts that practically never refills
+        LoginRateLimiter limiter = new LoginRateLimiter(2, 0.001, 3, 20,
+                Duration.ofSeconds(1), Duration.ofMinutes(5), 1000);
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(limiter, antMatcher(HttpMethod.POST, "/login"));
+
+        assertEquals(200, filter(filter, formLogin("user1")).getStatus());
+        assertEquals(200, filter(filter, formLogin("user2")).getStatus());
+        assertEquals(429, filter(filter, formLogin("user3")).getStatus());
+
+        // The login page itself is no authentication attempt
+        MockHttpServletRequest loginPage = new MockHttpServletRequest("GET", "/login");
+        loginPage.setServletPath("/login");
+        loginPage.setRemoteAddr("10.0.0.1");
+        assertEquals(200, filter(filter, loginPage).getStatus());
+    }
+}
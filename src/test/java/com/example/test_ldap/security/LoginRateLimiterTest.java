@@ -0,0 +1,50 @@
+package com.example.test_ldap.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private static void failLogin(LoginRateLimiter limiter, String username, String clientIp) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(username, "wrong");
+        authentication.setDetails(new WebAuthenticationDetails(clientIp, null));
+        limiter.onBadCredentials(new AuthenticationFailureBadCredentialsEvent(
+                authentication, new BadCredentialsException("Bad credentials")));
+    }
+
+    @Test
+    void shouldBackOffPerUsernameAndClientIp() {
+        LoginRateLimiter limiter = new LoginRateLimiter(100, 50, 3, 20,
+                Duration.ofSeconds(1), Duration.ofMinutes(5), 1000);
+        for (int i = 0; i < 4; i++) {
+            failLogin(limiter, "user1", "10.0.0.1");
+        }
+
+        assertTrue(limiter.tryAcquire("User1", "10.0.0.1") > 0);
+        assertEquals(0, limiter.tryAcquire("user1", "10.0.0.2"));
+        assertEquals(0, limiter.tryAcquire("user2", "10.0.0.1"));
+    }
+
+    @Test
+    void shouldNotTrackMoreKeysThanConfigured() {
+        // Bucket of one attempt that practically never refills
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 0.001, 3, 1000,
+                Duration.ofSeconds(1), Duration.ofMinutes(5), 5);
+
+        // Credential stuffing with fresh usernames: the failed pairs carry information and cannot be swept
+        for (int i = 0; i < 1000; i++) {
+            failLogin(limiter, "user" + i, "10.0.0.1");
+        }
+
+        // New client IPs are no longer tracked one by one, they share the overflow bucket
+        assertEquals(0, limiter.tryAcquire("someone", "10.0.0.2"));
+        assertTrue(limiter.tryAcquire("someone", "10.0.0.3") > 0);
+    }
+}
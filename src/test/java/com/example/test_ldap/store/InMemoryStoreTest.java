@@ -0,0 +1,116 @@
+package com.example.test_ldap.store;
+
+import com.example.test_ldap.model.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryStoreTest {
+
+    private static Position position(String symbol) {
+        return new Position(null, 1L, symbol, 10.0, 100.0, 110.0);
+    }
+
+    @Test
+    void shouldShareSnapshotUntilNextWrite() {
+        PositionStore store = new PositionStore();
+        store.create(position("AAPL"));
+
+        StoreSnapshot<Position> first = store.snapshot();
+        assertSame(first, store.snapshot());
+        assertEquals(1, first.values().size());
+
+        store.create(position("MSFT"));
+        StoreSnapshot<Position> second = store.snapshot();
+
+        assertNotSame(first, second);
+        assertTrue(second.version() > first.version());
+        assertEquals(2, second.values().size());
+        // The earlier snapshot is unaffected by the write
+        assertEquals(1, first.values().size());
+    }
+
+    @Test
+    void shouldReturnImmutableSnapshots() {
+        PositionStore store = new PositionStore();
+        store.create(position("AAPL"));
+
+        assertThrows(UnsupportedOperationException.class, () -> store.snapshot().values().clear());
+        assertThrows(UnsupportedOperationException.class, () -> store.findAll().add(position("MSFT")));
+    }
+
+    @Test
+    void shouldExcludeDeletedEntities() {
+        PositionStore store = new PositionStore();
+        Position kept = store.create(position("AAPL"));
+        Position deleted = store.create(position("MSFT"));
+
+        assertTrue(store.delete(deleted.getId()));
+
+        assertEquals(List.of(kept), store.snapshot().values());
+    }
+
+    @Test
+    void shouldPurgeOnlyTombstonesOlderThanTheGivenStamp() {
+        PositionStore store = new PositionStore();
+        store.enableReplication(0, 2);
+        Position kept = store.create(position("AAPL"));
+        Position deleted = store.create(position("MSFT"));
+        store.delete(deleted.getId());
+
+        assertEquals(0, store.purgeTombstones(0));
+        assertEquals(2, store.exportEntries().size());
+
+        assertEquals(1, store.purgeTombstones(Long.MAX_VALUE));
+        assertEquals(List.of(kept.getId()), store.exportEntries().stream().map(StoreEntry::id).toList());
+        assertEquals(List.of(kept), store.findAll());
+    }
+
+    @Test
+    void shouldPublishSnapshotsMatchingExactlyOneVersion() throws Exception {
+        PositionStore store = new PositionStore();
+
+        // Only creates: after version v the store holds exactly v positions
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    store.create(position("AAPL"));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        while (writers.stream().anyMatch(Thread::isAlive)) {
+            StoreSnapshot<Position> snapshot = store.snapshot();
+            assertEquals(snapshot.version(), snapshot.values().size());
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(20_000, store.snapshot().values().size());
+    }
+
+    @Test
+    void shouldNotReuseIdsOfPreviousRunAfterRestart() throws Exception {
+        PositionStore previousRun = new PositionStore();
+        previousRun.enableReplication(1, 3);
+        long lastId = 0;
+        for (int i = 0; i < 100; i++) {
+            lastId = previousRun.create(position("AAPL")).getId();
+        }
+
+        Thread.sleep(5);
+        // Same node restarted with an empty store
+        PositionStore restarted = new PositionStore();
+        restarted.enableReplication(1, 3);
+        Long firstId = restarted.create(position("AAPL")).getId();
+
+        assertTrue(firstId > lastId);
+        assertEquals(1, firstId % 3);
+    }
+}